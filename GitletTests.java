@@ -1,3 +1,14 @@
+import gitlet.Commit;
+import gitlet.FlightEvents;
+import gitlet.GitletException;
+import gitlet.GitletRepository;
+import gitlet.MergeResult;
+import gitlet.Status;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -24,7 +35,10 @@ import java.security.Permission;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -457,6 +471,54 @@ public class GitletTests {
         return checkOutputRegex(pattern);
     }
 
+    /**
+     * Runs a gitlet command with --trace, discarding its output, and returns
+     * the trace's overall I/O counters.
+     */
+    public static Map<String, Long> traceCounters(String... args) {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream oldErr = System.err;
+        System.setErr(new PrintStream(err));
+        try {
+            String[] traced = new String[args.length + 1];
+            traced[0] = "--trace";
+            System.arraycopy(args, 0, traced, 1, args.length);
+            runGitletCommand(traced);
+            getOutput();
+        } finally {
+            System.setErr(oldErr);
+        }
+        Matcher m = Pattern.compile("\"counters\": \\{([^}]*)}").matcher(err.toString());
+        assertTrue(err.toString(), m.find());
+        Map<String, Long> counters = new TreeMap<>();
+        for (String counter : m.group(1).split(", ")) {
+            if (!counter.isEmpty()) {
+                String[] kv = counter.split(": ");
+                counters.put(kv[0].replace("\"", ""), Long.parseLong(kv[1]));
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * Deletes dir and everything under it.
+     */
+    public static void deleteTree(Path dir) throws IOException {
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e) throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
     public static void i_prelude1() {
         gitletCommand(new String[]{"init"}, "");
     }
@@ -1498,4 +1560,1041 @@ public class GitletTests {
         assertFileEquals(NOTF, "F.txt");
         assertFileEquals(G, "G.txt");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test45_batchScript() throws IOException {
+        i_prelude1();
+        writeFile(WUG, "f.txt");
+        writeFile(NOTWUG, "g.txt");
+        Path script = Files.createTempFile("gitlet", ".batch");
+        Files.writeString(script, """
+                add f.txt
+                # comments and blank lines are skipped
+
+                add g.txt
+                commit "Two files"
+                branch other
+                rm g.txt
+                commit "Remove g.txt"
+                checkpoint
+                merge other
+                """);
+        gitletCommand(new String[]{"batch", script.toString()},
+                "Given branch is an ancestor of the current branch.");
+        Files.delete(script);
+        assertFileEquals(WUG, "f.txt");
+        assertFileDoesNotExist("g.txt");
+        gitletCommandP(new String[]{"log"}, """
+                ===
+                ${COMMIT_HEAD}
+                Remove g.txt
+
+                ===
+                ${COMMIT_HEAD}
+                Two files
+
+                ===
+                ${COMMIT_HEAD}
+                initial commit
+
+                """
+                .replace("${COMMIT_HEAD}", COMMIT_HEAD));
+        i_blankStatus2();
+    }
+
+    @Test
+    public void test46_multiPathAdd() {
+        i_prelude1();
+        writeFile(WUG, "f.txt");
+        writeFile(NOTWUG, "g.txt");
+        writeFile(WUG2, "h.md");
+        gitletCommand(new String[]{"add", "*.txt"}, "");
+        gitletCommand(new String[]{"add", "nope.txt", "h.md"}, "File does not exist.");
+        gitletCommandP(new String[]{"status"}, """
+                === Branches ===
+                \\*main
+
+                === Staged Files ===
+                f.txt
+                g.txt
+
+                === Removed Files ===
+
+                === Modifications Not Staged For Commit ===
+
+                === Untracked Files ===
+                h.md
+
+                """);
+        gitletCommand(new String[]{"add", "."}, "");
+        gitletCommand(new String[]{"commit", "Three files"}, "");
+        writeFile(WUG3, "g.txt");
+        gitletCommand(new String[]{"add", "f.txt", "g.txt", "h.md"}, "");
+        writeFile(NOTWUG, "g.txt");
+        gitletCommand(new String[]{"add", "."}, "");
+        i_blankStatus();
+    }
+
+    @Test
+    public void test47_packRefs() throws IOException {
+        i_prelude1();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 300; i++) { // enough to pack automatically
+            lines.append("branch auto").append(i).append('\n');
+        }
+        Path script = Files.createTempFile("gitlet", ".batch");
+        Files.writeString(script, lines.toString());
+        gitletCommand(new String[]{"batch", script.toString()}, "");
+        Files.delete(script);
+        gitletCommand(new String[]{"branch", "auto150"}, "A branch with that name already exists.");
+        gitletCommand(new String[]{"branch", "b1"}, "");
+        gitletCommand(new String[]{"pack-refs"}, "");
+        gitletCommand(new String[]{"rm-branch", "b1"}, "");
+        gitletCommand(new String[]{"checkout", "b1"}, "No such branch exists.");
+        gitletCommand(new String[]{"branch", "b1"}, "");
+        gitletCommand(new String[]{"rm-branch", "auto7"}, "");
+        gitletCommand(new String[]{"pack-refs"}, "");
+        gitletCommand(new String[]{"rm-branch", "auto7"}, "A branch with that name does not exist.");
+        writeFile(WUG, "f.txt");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "added wug"}, "");
+        gitletCommand(new String[]{"checkout", "auto299"}, "");
+        assertFileDoesNotExist("f.txt");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        assertFileEquals(WUG, "f.txt");
+    }
+
+    @Test
+    public void test48_gc() {
+        i_prelude1();
+        writeFile(WUG, "f.txt");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Add f.txt"}, "");
+        Matcher m = gitletCommandP(new String[]{"log"}, """
+                ===
+                ${COMMIT_HEAD}
+                ${ARBLINES}
+                """
+                .replace("${COMMIT_HEAD}", COMMIT_HEAD)
+                .replace("${ARBLINES}", ARBLINES));
+        String kept = m.group(1);
+        writeFile(NOTWUG, "f.txt");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Change f.txt"}, "");
+        m = gitletCommandP(new String[]{"log"}, """
+                ===
+                ${COMMIT_HEAD}
+                ${ARBLINES}
+                """
+                .replace("${COMMIT_HEAD}", COMMIT_HEAD)
+                .replace("${ARBLINES}", ARBLINES));
+        String dropped = m.group(1);
+        gitletCommand(new String[]{"reset", kept}, "");
+        writeFile(WUG2, "g.txt");
+        gitletCommand(new String[]{"add", "g.txt"}, "");
+        gitletCommandP(new String[]{"gc"}, """
+                Removed 0 commits and 0 snapshots, reclaiming 0 bytes.
+                Kept 3 commits and 3 snapshots.
+                Mark: \\d+ ms, sweep: \\d+ ms.
+                """);
+        gitletCommandP(new String[]{"gc", "--now"}, """
+                Removed 1 commits and 1 snapshots, reclaiming \\d+ bytes.
+                Kept 2 commits and 2 snapshots.
+                Mark: \\d+ ms, sweep: \\d+ ms.
+                """);
+        gitletCommand(new String[]{"checkout", dropped, "--", "f.txt"},
+                "No commit with that id exists.");
+        gitletCommand(new String[]{"commit", "Add g.txt"}, "");
+        gitletCommand(new String[]{"checkout", kept, "--", "f.txt"}, "");
+        assertFileEquals(WUG, "f.txt");
+        assertFileEquals(WUG2, "g.txt");
+    }
+
+    @Test
+    public void test49_branchContains() {
+        i_prelude1();
+        for (int i = 0; i < 70; i++) { // past the bitmap sampling interval
+            writeFile(i % 2 == 0 ? WUG : NOTWUG, "f.txt");
+            gitletCommand(new String[]{"add", "f.txt"}, "");
+            gitletCommand(new String[]{"commit", "c" + i}, "");
+        }
+        String early = gitletCommandP(new String[]{"find", "c3"}, "([a-f0-9]+)\n").group(1);
+        gitletCommand(new String[]{"branch", "side"}, "");
+        gitletCommand(new String[]{"rm", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Remove f.txt"}, "");
+        String mainOnly = gitletCommandP(new String[]{"find", "Remove f.txt"},
+                "([a-f0-9]+)\n").group(1);
+        gitletCommand(new String[]{"pack-refs"}, "");
+        gitletCommand(new String[]{"branch", "--contains", early}, "main\nside\n");
+        gitletCommand(new String[]{"branch", "--contains", mainOnly}, "main\n");
+        gitletCommand(new String[]{"checkout", "side"}, "");
+        writeFile(WUG2, "g.txt");
+        gitletCommand(new String[]{"add", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Add g.txt"}, "");
+        String sideOnly = gitletCommandP(new String[]{"find", "Add g.txt"},
+                "([a-f0-9]+)\n").group(1);
+        gitletCommand(new String[]{"branch", "--contains", sideOnly}, "side\n");
+        gitletCommand(new String[]{"merge", "main"}, "");
+        gitletCommand(new String[]{"branch", "--contains", mainOnly}, "main\nside\n");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        gitletCommand(new String[]{"merge", "side"}, "Current branch fast-forwarded.");
+        gitletCommand(new String[]{"merge", "side"},
+                "Given branch is an ancestor of the current branch.");
+    }
+
+    @Test
+    public void test50_lineMerge() throws IOException {
+        i_prelude1();
+        Files.writeString(Path.of("f.txt"), "one\ntwo\nthree\nfour\nfive\n");
+        Files.writeString(Path.of("g.txt"), "x\ny\nz\n");
+        gitletCommand(new String[]{"add", "f.txt", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Two files"}, "");
+        gitletCommand(new String[]{"branch", "other"}, "");
+        Files.writeString(Path.of("f.txt"), "ONE\ntwo\nthree\nfour\nfive\n");
+        Files.writeString(Path.of("g.txt"), "x\nmain y\nz\n");
+        gitletCommand(new String[]{"add", "f.txt", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Change first lines"}, "");
+        gitletCommand(new String[]{"checkout", "other"}, "");
+        Files.writeString(Path.of("f.txt"), "one\ntwo\nthree\nfour\nFIVE\n");
+        Files.writeString(Path.of("g.txt"), "x\nother y\nz\n");
+        gitletCommand(new String[]{"add", "f.txt", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Change last lines"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        gitletCommand(new String[]{"merge", "other"}, "Encountered a merge conflict.");
+        assertEquals("ONE\ntwo\nthree\nfour\nFIVE\n", Files.readString(Path.of("f.txt")));
+        assertEquals("x\n<<<<<<< HEAD\nmain y\n=======\nother y\n>>>>>>>\nz\n",
+                Files.readString(Path.of("g.txt")));
+    }
+
+    @Test
+    public void test51_diff() throws IOException {
+        i_prelude1();
+        Files.writeString(Path.of("f.txt"), "1\n2\n3\n4\n5\n6\n7\n8\n9\n10\n");
+        Files.writeString(Path.of("g.txt"), "same\n");
+        gitletCommand(new String[]{"add", "f.txt", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Two files"}, "");
+        gitletCommand(new String[]{"diff"}, "");
+        Files.writeString(Path.of("f.txt"), "1\n2\n3\n4\nfive\n6\n7\n8\n9\n10\n");
+        Files.writeString(Path.of("h.txt"), "new");
+        gitletCommand(new String[]{"add", "h.txt"}, "");
+        gitletCommand(new String[]{"diff"}, """
+                diff --git a/f.txt b/f.txt
+                --- a/f.txt
+                +++ b/f.txt
+                @@ -2,7 +2,7 @@
+                 2
+                 3
+                 4
+                -5
+                +five
+                 6
+                 7
+                 8
+                diff --git a/h.txt b/h.txt
+                new file
+                --- /dev/null
+                +++ b/h.txt
+                @@ -0,0 +1 @@
+                +new
+                \\ No newline at end of file
+                """);
+        gitletCommand(new String[]{"diff", "--cached", "--name-only"}, "h.txt");
+        gitletCommand(new String[]{"diff", "--stat"}, """
+                 f.txt | 2 +-
+                 h.txt | 1 +
+                 2 files changed, 2 insertions(+), 1 deletion(-)
+                """);
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"rm", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Edit"}, "");
+        Matcher logMatch = gitletCommandP(new String[]{"log"},
+                "===\ncommit ([a-f0-9]+)\n[\\s\\S]*?===\ncommit ([a-f0-9]+)\n[\\s\\S]*");
+        gitletCommand(new String[]{"diff", logMatch.group(2), logMatch.group(1), "--name-only"},
+                "f.txt\ng.txt\nh.txt");
+        gitletCommand(new String[]{"diff", "--bogus"}, "Incorrect operands.");
+
+        // listing a changed file hashes it once, and reads neither side's content
+        Files.writeString(Path.of("big.txt"), "x\n".repeat(100000));
+        gitletCommand(new String[]{"add", "big.txt"}, "");
+        gitletCommand(new String[]{"commit", "Big"}, "");
+        Files.writeString(Path.of("big.txt"), "y\n".repeat(100000));
+        Map<String, Long> counters = traceCounters("diff", "--name-only");
+        assertTrue(counters.toString(), counters.get("bytesRead") < 2 * 200000);
+        assertEquals(counters.toString(), (Long) 1L, counters.get("objectsRead"));
+    }
+
+    @Test
+    public void test52_mergeManyFiles() throws IOException {
+        i_prelude1();
+        Files.writeString(Path.of("keep.txt"), "a\nb\nc\n");
+        Files.writeString(Path.of("gone.txt"), "bye\n");
+        gitletCommand(new String[]{"add", "keep.txt", "gone.txt"}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "other"}, "");
+        Files.writeString(Path.of("keep.txt"), "A\nb\nc\n");
+        gitletCommand(new String[]{"add", "keep.txt"}, "");
+        gitletCommand(new String[]{"commit", "Main edit"}, "");
+        gitletCommand(new String[]{"checkout", "other"}, "");
+        for (int i = 0; i < 40; i++) {
+            Files.writeString(Path.of("n" + i + ".txt"), "file " + i + "\n");
+        }
+        Files.writeString(Path.of("keep.txt"), "a\nb\nC\n");
+        gitletCommand(new String[]{"add", "."}, "");
+        gitletCommand(new String[]{"rm", "gone.txt"}, "");
+        gitletCommand(new String[]{"commit", "Other edits"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        gitletCommand(new String[]{"merge", "other"}, "");
+        assertEquals("A\nb\nC\n", Files.readString(Path.of("keep.txt")));
+        assertEquals("file 39\n", Files.readString(Path.of("n39.txt")));
+        assertFalse(Files.exists(Path.of("gone.txt")));
+        // the merge commit tracks exactly what was written:
+        gitletCommand(new String[]{"diff", "--name-only"}, "");
+        gitletCommandP(new String[]{"status"}, """
+                === Branches ===
+                \\*main
+                other
+                                
+                === Staged Files ===
+                                
+                === Removed Files ===
+                                
+                === Modifications Not Staged For Commit ===
+                                
+                === Untracked Files ===
+                """);
+    }
+
+    @Test
+    public void test53_mergeTree() throws IOException {
+        i_prelude1();
+        Files.writeString(Path.of("f.txt"), "one\ntwo\nthree\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "clean"}, "");
+        gitletCommand(new String[]{"branch", "clash"}, "");
+        Files.writeString(Path.of("f.txt"), "ONE\ntwo\nthree\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Main edit"}, "");
+        gitletCommand(new String[]{"checkout", "clean"}, "");
+        Files.writeString(Path.of("f.txt"), "one\ntwo\nTHREE\n");
+        Files.writeString(Path.of("g.txt"), "new\n");
+        gitletCommand(new String[]{"add", "f.txt", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Clean edit"}, "");
+        gitletCommand(new String[]{"checkout", "clash"}, "");
+        Files.writeString(Path.of("f.txt"), "uno\ntwo\nthree\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Clashing edit"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+
+        gitletCommand(new String[]{"merge-tree", "main", "clash"},
+                "Encountered a merge conflict.\nf.txt");
+        gitletCommand(new String[]{"merge-tree", "main", "clean"}, "Merged cleanly.");
+        gitletCommand(new String[]{"merge-tree", "main", "clean", "--write", "main"},
+                "Cannot write a merge to the checked-out branch.");
+        // nothing in the working tree was touched:
+        assertEquals("ONE\ntwo\nthree\n", Files.readString(Path.of("f.txt")));
+        assertFalse(Files.exists(Path.of("g.txt")));
+
+        gitletCommandP(new String[]{"merge-tree", "main", "clean", "--write", "queue"},
+                "Merged cleanly.\n[a-f0-9]{40}");
+        gitletCommand(new String[]{"checkout", "queue"}, "");
+        assertEquals("ONE\ntwo\nTHREE\n", Files.readString(Path.of("f.txt")));
+        assertEquals("new\n", Files.readString(Path.of("g.txt")));
+        gitletCommand(new String[]{"diff", "--name-only"}, "");
+    }
+
+    @Test
+    public void test54_mergeRenames() throws IOException {
+        i_prelude1();
+        Files.writeString(Path.of("old.txt"), "one\ntwo\nthree\nfour\nfive\nsix\n");
+        Files.writeString(Path.of("moved.txt"), "alpha\nbeta\ngamma\n");
+        gitletCommand(new String[]{"add", "old.txt", "moved.txt"}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "other"}, "");
+        // head renames old.txt with an edit, and edits moved.txt in place:
+        gitletCommand(new String[]{"rm", "old.txt"}, "");
+        Files.writeString(Path.of("new.txt"), "one\ntwo\nthree\nfour\nfive\nSIX\n");
+        Files.writeString(Path.of("moved.txt"), "ALPHA\nbeta\ngamma\n");
+        gitletCommand(new String[]{"add", "new.txt", "moved.txt"}, "");
+        gitletCommand(new String[]{"commit", "Rename old"}, "");
+        // other edits old.txt in place, and renames moved.txt unchanged:
+        gitletCommand(new String[]{"checkout", "other"}, "");
+        Files.writeString(Path.of("old.txt"), "ONE\ntwo\nthree\nfour\nfive\nsix\n");
+        gitletCommand(new String[]{"rm", "moved.txt"}, "");
+        Files.writeString(Path.of("there.txt"), "alpha\nbeta\ngamma\n");
+        gitletCommand(new String[]{"add", "old.txt", "there.txt"}, "");
+        gitletCommand(new String[]{"commit", "Edit old, move moved"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+
+        gitletCommand(new String[]{"merge", "other"}, "");
+        assertEquals("ONE\ntwo\nthree\nfour\nfive\nSIX\n", Files.readString(Path.of("new.txt")));
+        assertEquals("ALPHA\nbeta\ngamma\n", Files.readString(Path.of("there.txt")));
+        assertFalse(Files.exists(Path.of("old.txt")));
+        assertFalse(Files.exists(Path.of("moved.txt")));
+        gitletCommand(new String[]{"diff", "--name-only"}, "");
+    }
+
+    @Test
+    public void test55_rebaseAndCherryPick() throws IOException {
+        i_prelude1();
+        Files.writeString(Path.of("f.txt"), "1\n2\n3\n4\n5\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "feature"}, "");
+        gitletCommand(new String[]{"branch", "clash"}, "");
+        Files.writeString(Path.of("f.txt"), "1\n2\n3\n4\nfive\n");
+        Files.writeString(Path.of("c.txt"), "c\n");
+        gitletCommand(new String[]{"add", "f.txt", "c.txt"}, "");
+        gitletCommand(new String[]{"commit", "Main edit"}, "");
+        gitletCommand(new String[]{"checkout", "feature"}, "");
+        Files.writeString(Path.of("a.txt"), "a\n");
+        gitletCommand(new String[]{"add", "a.txt"}, "");
+        gitletCommand(new String[]{"commit", "Add a"}, "");
+        Files.writeString(Path.of("f.txt"), "one\n2\n3\n4\n5\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Edit first line"}, "");
+
+        gitletCommand(new String[]{"rebase", "main"}, "");
+        assertEquals("one\n2\n3\n4\nfive\n", Files.readString(Path.of("f.txt")));
+        assertEquals("a\n", Files.readString(Path.of("a.txt")));
+        assertEquals("c\n", Files.readString(Path.of("c.txt")));
+        gitletCommandP(new String[]{"log"},
+                "[\\s\\S]*Edit first line[\\s\\S]*Add a[\\s\\S]*Main edit[\\s\\S]*Base[\\s\\S]*");
+        gitletCommand(new String[]{"diff", "--name-only"}, "");
+        gitletCommand(new String[]{"rebase", "main"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        gitletCommand(new String[]{"rebase", "feature"}, "Current branch fast-forwarded.");
+        assertEquals("one\n2\n3\n4\nfive\n", Files.readString(Path.of("f.txt")));
+
+        // replaying "Main edit" where line 5 was changed differently conflicts:
+        gitletCommand(new String[]{"checkout", "clash"}, "");
+        Files.writeString(Path.of("f.txt"), "1\n2\n3\n4\nFIVE\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Clashing edit"}, "");
+        Matcher m = gitletCommandP(new String[]{"find", "Main edit"}, "([a-f0-9]+)");
+        gitletCommand(new String[]{"cherry-pick", m.group(1)}, "Encountered a merge conflict.");
+        assertEquals("1\n2\n3\n4\n<<<<<<< HEAD\nFIVE\n=======\nfive\n>>>>>>>\n",
+                Files.readString(Path.of("f.txt")));
+        assertEquals("c\n", Files.readString(Path.of("c.txt")));
+        gitletCommand(new String[]{"diff", "--cached", "--name-only"}, "c.txt\nf.txt");
+    }
+
+    @Test
+    public void test56_rerere() throws IOException {
+        i_prelude1();
+        gitletCommand(new String[]{"config", "rerere.enabled", "true"}, "");
+        Files.writeString(Path.of("f.txt"), "top\nx\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "other"}, "");
+        Files.writeString(Path.of("f.txt"), "top\nmain\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Main edit"}, "");
+        gitletCommand(new String[]{"checkout", "other"}, "");
+        Files.writeString(Path.of("f.txt"), "top\nother\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Other edit"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        Matcher m = gitletCommandP(new String[]{"find", "Main edit"}, "([a-f0-9]+)");
+        String mainEdit = m.group(1);
+        String otherEdit = gitletCommandP(new String[]{"find", "Other edit"}, "([a-f0-9]+)").group(1);
+
+        gitletCommand(new String[]{"merge", "other"}, "Encountered a merge conflict.");
+        gitletCommandP(new String[]{"rerere"}, "[a-f0-9]{40} unresolved");
+        Files.writeString(Path.of("f.txt"), "top\nmain and other\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Resolve"}, "");
+        m = gitletCommandP(new String[]{"rerere"}, "([a-f0-9]{40}) resolved");
+        String id = m.group(1);
+
+        // the same conflict again is resolved the same way:
+        gitletCommand(new String[]{"reset", mainEdit}, "");
+        gitletCommand(new String[]{"merge", "other"}, "Resolved 'f.txt' using previous resolution.");
+        assertEquals("top\nmain and other\nbottom\n", Files.readString(Path.of("f.txt")));
+        // and merging the other way round, with the sides of the conflict swapped:
+        gitletCommand(new String[]{"reset", mainEdit}, "");
+        gitletCommand(new String[]{"checkout", "other"}, "");
+        gitletCommand(new String[]{"merge", "main"}, "Resolved 'f.txt' using previous resolution.");
+        assertEquals("top\nmain and other\nbottom\n", Files.readString(Path.of("f.txt")));
+        gitletCommand(new String[]{"reset", otherEdit}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+
+        gitletCommand(new String[]{"rerere", "gc"}, "Pruned 0 resolutions.");
+        gitletCommand(new String[]{"rerere", "forget", id.substring(0, 8)}, "");
+        gitletCommand(new String[]{"rerere"}, "");
+        gitletCommand(new String[]{"rerere", "forget", id}, "No recorded resolution with that id.");
+        gitletCommand(new String[]{"reset", mainEdit}, "");
+        gitletCommand(new String[]{"merge", "other"}, "Encountered a merge conflict.");
+    }
+
+    @Test
+    public void test57_sha256ObjectFormat() throws IOException {
+        gitletCommand(new String[]{"init", "--object-format", "sha256"}, "");
+        gitletCommand(new String[]{"config", "core.objectFormat", "sha1"},
+                "core.objectFormat can only be chosen by init.");
+        Files.writeString(Path.of("f.txt"), "one\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Add f"}, "");
+        // hashed straight from disk, an unchanged file matches head's snapshot:
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"diff", "--name-only"}, "");
+        Matcher m = gitletCommandP(new String[]{"find", "Add f"}, "([a-f0-9]{64})");
+        Files.writeString(Path.of("f.txt"), "two\n");
+        gitletCommand(new String[]{"diff", "--name-only"}, "f.txt");
+        gitletCommand(new String[]{"checkout", m.group(1).substring(0, 10), "--", "f.txt"}, "");
+        assertEquals("one\n", Files.readString(Path.of("f.txt")));
+    }
+
+    @Test
+    public void test58_trace() throws IOException {
+        i_prelude1();
+        Files.writeString(Path.of("f.txt"), "one\n");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream oldErr = System.err;
+        System.setErr(new PrintStream(err));
+        try {
+            gitletCommand(new String[]{"--trace", "add", "."}, "");
+            String trace = err.toString();
+            assertTrue(trace, trace.contains("{\"name\": \"gitlet add .\""));
+            assertTrue(trace, trace.contains("{\"name\": \"plainFilenamesIn\""));
+            assertTrue(trace, trace.contains("{\"name\": \"hashForStage\""));
+            assertTrue(trace, trace.contains("\"dirsListed\": 1"));
+            assertTrue(trace, trace.contains("\"objectsWritten\": 1"));
+            err.reset();
+            gitletCommand(new String[]{"--trace=chrome", "commit", "Add f"}, "");
+            assertTrue(err.toString(), err.toString().contains("\"ph\": \"X\""));
+            err.reset();
+            gitletCommand(new String[]{"--trace=xml", "status"}, "Invalid trace format: xml");
+            assertEquals("", err.toString());
+        } finally {
+            System.setErr(oldErr);
+        }
+    }
+
+    @Test
+    public void test59_flightRecorderEvents() throws IOException {
+        Path dump = Files.createTempFile("gitlet", ".jfr");
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("gitlet.Command");
+            recording.enable("gitlet.ObjectWrite");
+            recording.start();
+            i_prelude1();
+            Files.writeString(Path.of("f.txt"), "one\n");
+            gitletCommand(new String[]{"add", "f.txt"}, "");
+            gitletCommand(new String[]{"commit", "Add f"}, "");
+            gitletCommand(new String[]{"checkout", "nope"}, "No such branch exists.");
+            recording.stop();
+            recording.dump(dump);
+            events = RecordingFile.readAllEvents(dump);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+        List<String> commands = new ArrayList<>();
+        List<String> written = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals("gitlet.Command")) {
+                commands.add(event.getString("commandLine") + " " + event.getBoolean("failed"));
+            } else if (event.getEventType().getName().equals("gitlet.ObjectWrite")) {
+                written.add(event.getString("objectType"));
+                assertTrue(event.getLong("bytes") > 0);
+            }
+        }
+        assertTrue(commands.toString(), commands.contains("gitlet add f.txt false"));
+        assertTrue(commands.toString(), commands.contains("gitlet commit Add f false"));
+        assertTrue(commands.toString(), commands.contains("gitlet checkout nope true"));
+        assertTrue(written.toString(), written.contains("snap"));
+        assertTrue(written.toString(), written.contains("commit"));
+    }
+
+    @Test
+    public void test60_metrics() throws IOException {
+        i_prelude1();
+        gitletCommandP(new String[]{"status"}, "(?s).*");
+        gitletCommand(new String[]{"config", "metrics.enabled", "true"}, "");
+        Files.writeString(Path.of("f.txt"), "one\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Add f"}, "");
+        gitletCommandP(new String[]{"status"}, "(?s).*");
+        gitletCommandP(new String[]{"status"}, "(?s).*");
+        gitletCommandP(new String[]{"metrics"},
+                "command\\s+runs\\s+mean ms\\s+p50 ms\\s+p90 ms\\s+p99 ms\\s+max ms\\s+"
+                + "add\\s+1\\s+[\\d.]+\\s+[\\d.]+\\s+[\\d.]+\\s+[\\d.]+\\s+[\\d.]+\\s+"
+                + "commit\\s+1\\s+.*\\s+"
+                + "config\\s+1\\s+.*\\s+"
+                + "status\\s+2\\s+.*\\s+"
+                + "Objects: 2 commits, 1 snapshots, \\d+ bytes\\.\\s+Branches: 1\\.");
+        gitletCommand(new String[]{"metrics", "--prometheus", "metrics.prom"}, "");
+        String prom = Files.readString(Path.of("metrics.prom"));
+        assertTrue(prom, prom.contains("# TYPE gitlet_command_duration_seconds histogram\n"));
+        assertTrue(prom, prom.contains("gitlet_command_duration_seconds_bucket{command=\"status\",le=\"+Inf\"} 2\n"));
+        assertTrue(prom, prom.contains("gitlet_command_duration_seconds_count{command=\"metrics\"} 1\n"));
+        assertTrue(prom, prom.contains("gitlet_objects{type=\"commit\"} 2\n"));
+        assertTrue(prom, prom.contains("gitlet_branches 1\n"));
+        gitletCommand(new String[]{"metrics", "--prometheus"}, "Incorrect operands.");
+    }
+
+    @Test
+    public void test61_operationCountsScale() throws IOException {
+        int[] sizes = {10, 100, 1000};
+        Map<String, List<Map<String, Long>>> counts = new LinkedHashMap<>();
+        for (int size : sizes) {
+            // the same history each time, in a fresh repository of size files
+            recursivelyCleanWD();
+            i_prelude1();
+            for (int i = 0; i < size; i++) {
+                Files.writeString(Path.of("f" + i + ".txt"), "file " + i + "\n");
+            }
+            // staging every file costs one object each and one listing
+            Map<String, Long> addAll = traceCounters("add", ".");
+            assertEquals(addAll.toString(), (Long) (long) size, addAll.get("objectsWritten"));
+            assertEquals(addAll.toString(), (Long) 1L, addAll.get("dirsListed"));
+            gitletCommand(new String[]{"commit", "base"}, "");
+            gitletCommand(new String[]{"branch", "side"}, "");
+            Files.writeString(Path.of("f0.txt"), "main\n");
+            counts.computeIfAbsent("add", k -> new ArrayList<>()).add(traceCounters("add", "f0.txt"));
+            counts.computeIfAbsent("status", k -> new ArrayList<>()).add(traceCounters("status"));
+            gitletCommand(new String[]{"commit", "main"}, "");
+            counts.computeIfAbsent("checkout", k -> new ArrayList<>()).add(traceCounters("checkout", "side"));
+            Files.writeString(Path.of("f1.txt"), "side\n");
+            gitletCommand(new String[]{"add", "f1.txt"}, "");
+            gitletCommand(new String[]{"commit", "side"}, "");
+            gitletCommand(new String[]{"checkout", "main"}, "");
+            counts.computeIfAbsent("merge", k -> new ArrayList<>()).add(traceCounters("merge", "side"));
+        }
+        // each operation changes one file: its object reads and writes, stats and listings
+        // must not grow with the number of files tracked
+        for (Map.Entry<String, List<Map<String, Long>>> op : counts.entrySet()) {
+            Map<String, Long> smallest = op.getValue().get(0);
+            Map<String, Long> largest = op.getValue().get(sizes.length - 1);
+            for (String counter : new String[]{"objectsRead", "objectsWritten", "filesStated", "dirsListed"}) {
+                assertTrue(op.getKey() + " " + counter + " grew with repository size: " + op.getValue(),
+                        largest.getOrDefault(counter, 0L) <= smallest.getOrDefault(counter, 0L));
+            }
+            // bytes are deliberately linear: every commit object and the index list each tracked
+            // file, status and checkout hash each working file, and a merge commit lists every
+            // file. Bound the cost per tracked file so nothing worse than linear creeps in.
+            for (String counter : new String[]{"bytesRead", "bytesWritten"}) {
+                long perFile = (largest.getOrDefault(counter, 0L) - smallest.getOrDefault(counter, 0L))
+                        / (sizes[sizes.length - 1] - sizes[0]);
+                assertTrue(op.getKey() + " " + counter + " per tracked file: " + op.getValue(), perFile <= 256);
+            }
+        }
+    }
+
+    @Test
+    public void test62_flightEventTypesShared() throws IOException {
+        List<Path> dirs = new ArrayList<>();
+        try {
+            try (Recording recording = new Recording(); FlightEvents events = new FlightEvents()) {
+                recording.enable("gitlet.ObjectWrite");
+                recording.start();
+                for (int i = 0; i < 50; i++) {
+                    Path dir = Files.createTempDirectory("gitlet-repo");
+                    dirs.add(dir);
+                    GitletRepository.init(dir.toFile(), "sha1", events);
+                    Files.writeString(dir.resolve("f.txt"), "version " + i + "\n");
+                    GitletRepository repo = GitletRepository.open(dir.toFile(), events);
+                    repo.add("f.txt");
+                    repo.commit("Add f");
+                }
+                // one set of event types for all 50 repositories
+                assertEquals(5, countGitletEventTypes());
+                recording.stop();
+            }
+            assertEquals(0, countGitletEventTypes());
+        } finally {
+            for (Path dir : dirs) {
+                deleteTree(dir);
+            }
+        }
+    }
+
+    private static long countGitletEventTypes() {
+        return FlightRecorder.getFlightRecorder().getEventTypes().stream()
+                .map(EventType::getName).filter(name -> name.startsWith("gitlet.")).count();
+    }
+
+    @Test
+    public void test63_configValidation() {
+        i_prelude1();
+        gitletCommand(new String[]{"config", "core.durabilty", "full"}, "Unknown config key: core.durabilty");
+        gitletCommand(new String[]{"config", "core.durabilty"}, "No such config key is set.");
+        gitletCommand(new String[]{"config", "core.durability", "fsync"},
+                "Invalid value for core.durability: fsync");
+        gitletCommand(new String[]{"config", "core.lockTimeout", "soon"},
+                "Invalid value for core.lockTimeout: soon");
+        gitletCommand(new String[]{"config", "rerere.enabled", "yes"}, "Invalid value for rerere.enabled: yes");
+        gitletCommand(new String[]{"config", "core.durability", "full"}, "");
+        gitletCommand(new String[]{"config", "core.durability"}, "full");
+    }
+
+    @Test
+    public void test64_flushIsOneTransaction() throws IOException {
+        i_prelude1();
+        for (String durability : new String[]{"none", "objects", "full"}) {
+            gitletCommand(new String[]{"config", "core.durability", durability}, "");
+            Files.writeString(Path.of(durability + ".txt"), durability + "\n");
+            gitletCommand(new String[]{"add", durability + ".txt"}, "");
+            gitletCommand(new String[]{"commit", "Add " + durability}, "");
+        }
+        File dir = new File(System.getProperty("user.dir"));
+        assertEquals(List.of("Add full", "Add objects", "Add none", "initial commit"), logMessages(dir));
+
+        // a crash between writing the refs and the index of a commit leaves the old index behind
+        Files.writeString(Path.of("g.txt"), "g\n");
+        gitletCommand(new String[]{"add", "g.txt"}, "");
+        byte[] staged = Files.readAllBytes(Path.of(".gitlet", "index"));
+        gitletCommand(new String[]{"commit", "Add g"}, "");
+        Files.write(Path.of(".gitlet", "index"), staged);
+        assertEquals(List.of(), GitletRepository.open(dir).status().getStagedFiles());
+        gitletCommand(new String[]{"commit", "Add g again"}, "No changes added to the commit.");
+
+        // an index that cannot be written once the refs have moved does not undo the commit
+        GitletRepository repo = GitletRepository.open(dir);
+        repo.setAutoFlush(false);
+        Files.writeString(Path.of("h.txt"), "h\n");
+        repo.add("h.txt");
+        String id = repo.commit("Add h");
+        Files.delete(Path.of(".gitlet", "index"));
+        Files.createDirectories(Path.of(".gitlet", "index", "in-the-way"));
+        repo.flush();
+        deleteTree(Path.of(".gitlet", "index"));
+        assertEquals(id, GitletRepository.open(dir).log().iterator().next().getCommitHash());
+        assertEquals(List.of(), GitletRepository.open(dir).status().getStagedFiles());
+    }
+
+    @Test
+    public void test65_indexLockAndBranchCas() throws IOException {
+        i_prelude1();
+        File dir = new File(System.getProperty("user.dir"));
+        gitletCommand(new String[]{"config", "core.lockTimeout", "50"}, "");
+        Files.writeString(Path.of("f.txt"), "one\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "one"}, "");
+        String one = GitletRepository.open(dir).log().iterator().next().getCommitHash();
+
+        // a held index lock times out, naming the file to remove, and changes nothing
+        Files.createFile(Path.of(".gitlet", ".index.lock"));
+        Files.writeString(Path.of("f.txt"), "two\n");
+        gitletCommandP(new String[]{"add", "f.txt"}, "Unable to lock index: .*\\.index\\.lock exists\\. "
+                + "Another gitlet process may be running; if not, remove the file\\.");
+        assertEquals(List.of(), GitletRepository.open(dir).status().getStagedFiles());
+        Files.delete(Path.of(".gitlet", ".index.lock"));
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "two"}, "");
+        String two = GitletRepository.open(dir).log().iterator().next().getCommitHash();
+        byte[] refsAtTwo = Files.readAllBytes(Path.of(".gitlet", "refs"));
+        gitletCommand(new String[]{"reset", one}, "");
+
+        // main moves under a writer between its read and its flush: nothing is written
+        GitletRepository writer = GitletRepository.open(dir);
+        writer.setAutoFlush(false);
+        Files.writeString(Path.of("f.txt"), "three\n");
+        writer.add("f.txt");
+        writer.commit("three");
+        Files.write(Path.of(".gitlet", "refs"), refsAtTwo);
+        try {
+            writer.flush();
+            fail("flush should have failed");
+        } catch (gitlet.GitletException excp) {
+            assertEquals("Branch main was changed by another process; nothing was updated.", excp.getMessage());
+        }
+        assertEquals(two, GitletRepository.open(dir).log().iterator().next().getCommitHash());
+
+        // writers to different branches both get their way
+        GitletRepository first = GitletRepository.open(dir);
+        first.setAutoFlush(false);
+        Files.writeString(Path.of("f.txt"), "four\n");
+        first.add("f.txt");
+        String four = first.commit("four");
+        GitletRepository.open(dir).branch("other");
+        first.flush();
+        GitletRepository after = GitletRepository.open(dir);
+        assertEquals(four, after.log().iterator().next().getCommitHash());
+        assertEquals(List.of("main", "other"), after.status().getBranches());
+        assertTrue(after.branchContains("other", two));
+    }
+
+    @Test
+    public void test66_refSnapshotsAndPackedRefs() throws IOException {
+        i_prelude1();
+        File dir = new File(System.getProperty("user.dir"));
+        Path refs = Path.of(".gitlet", "refs");
+        Files.writeString(Path.of("f.txt"), "one\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "one"}, "");
+        gitletCommand(new String[]{"branch", "b1"}, "");
+        byte[] refsOne = Files.readAllBytes(refs);
+        Files.writeString(Path.of("f.txt"), "two\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "two"}, "");
+        gitletCommand(new String[]{"branch", "b2"}, "");
+        byte[] refsTwo = Files.readAllBytes(refs);
+
+        // a reader sees head and branches as of one snapshot, whichever is current
+        Files.write(refs, refsOne);
+        assertEquals(List.of("one", "initial commit"), logMessages(dir));
+        assertEquals(List.of("b1", "main"), GitletRepository.open(dir).status().getBranches());
+        Files.write(refs, refsTwo);
+        assertEquals(List.of("two", "one", "initial commit"), logMessages(dir));
+        assertEquals(List.of("b1", "b2", "main"), GitletRepository.open(dir).status().getBranches());
+
+        // loose refs of later snapshots override the packed ones
+        gitletCommand(new String[]{"pack-refs"}, "");
+        Files.writeString(Path.of("f.txt"), "three\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "three"}, "");
+        gitletCommand(new String[]{"rm-branch", "b2"}, "");
+        assertEquals(List.of("three", "two", "one", "initial commit"), logMessages(dir));
+        assertEquals(List.of("b1", "main"), GitletRepository.open(dir).status().getBranches());
+        assertTrue(GitletRepository.open(dir).branchContains("b1", logCommitIds(dir).get(2)));
+
+        // packed refs newer than the snapshot after the one they were packed from are never mixed in
+        Files.write(refs, refsOne);
+        gitletCommand(new String[]{"status"}, "Could not read a consistent set of refs.");
+    }
+
+    @Test
+    public void test67_rerereForgetAndUse() throws IOException {
+        i_prelude1();
+        gitletCommand(new String[]{"config", "rerere.enabled", "true"}, "");
+        Files.writeString(Path.of("f.txt"), "top\nx\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "other"}, "");
+        Files.writeString(Path.of("f.txt"), "top\nmain\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Main edit"}, "");
+        gitletCommand(new String[]{"checkout", "other"}, "");
+        Files.writeString(Path.of("f.txt"), "top\nother\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Other edit"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        String mainEdit = gitletCommandP(new String[]{"find", "Main edit"}, "([a-f0-9]+)").group(1);
+        gitletCommand(new String[]{"merge", "other"}, "Encountered a merge conflict.");
+        Files.writeString(Path.of("f.txt"), "top\nmain and other\nbottom\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Resolve"}, "");
+        String id = gitletCommandP(new String[]{"rerere"}, "([a-f0-9]{40}) resolved").group(1);
+        gitletCommand(new String[]{"reset", mainEdit}, "");
+
+        // a read-only merge-tree does not count as a use, so gc still prunes the stale resolution:
+        File postimage = Path.of(".gitlet", "rr-cache", id, "postimage").toFile();
+        long stale = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(90);
+        assertTrue(postimage.setLastModified(stale));
+        gitletCommand(new String[]{"merge-tree", "main", "other"}, "Merged cleanly.");
+        assertEquals(stale / 1000, postimage.lastModified() / 1000);
+        // a merge that writes the resolution does:
+        gitletCommand(new String[]{"merge", "other"}, "Resolved 'f.txt' using previous resolution.");
+        assertTrue(postimage.lastModified() > stale + TimeUnit.DAYS.toMillis(89));
+        gitletCommand(new String[]{"rerere", "gc"}, "Pruned 0 resolutions.");
+
+        // forget needs a prefix long enough to name one entry:
+        String lookalike = id.substring(0, 4) + "0".repeat(36);
+        assertTrue(Path.of(".gitlet", "rr-cache", lookalike).toFile().mkdir());
+        gitletCommand(new String[]{"rerere", "forget", ""}, "An id prefix must be at least 4 characters.");
+        gitletCommand(new String[]{"rerere", "forget", id.substring(0, 3)},
+                "An id prefix must be at least 4 characters.");
+        gitletCommand(new String[]{"rerere", "forget", id.substring(0, 4)},
+                "More than one recorded resolution has that id prefix.");
+        gitletCommandP(new String[]{"rerere"}, "[a-f0-9]{40} (un)?resolved\n[a-f0-9]{40} (un)?resolved");
+        gitletCommand(new String[]{"rerere", "forget", id.substring(0, 8)}, "");
+        gitletCommand(new String[]{"rerere"}, lookalike + " unresolved");
+    }
+
+    @Test
+    public void test68_renameBandsSkipBoilerplate() throws IOException {
+        i_prelude1();
+        int n = 100;
+        String boilerplate = "// Copyright\n// License\npackage x;\nimport a;\nimport b;\nclass X {\n";
+        String renamed = "alpha\nbeta\ngamma\ndelta\nepsilon\nzeta\neta\ntheta\n";
+        for (int i = 0; i < n; i++) {
+            Files.writeString(Path.of("f" + i + ".txt"), boilerplate + uniqueLines("f" + i, 14));
+        }
+        Files.writeString(Path.of("r.txt"), renamed);
+        gitletCommand(new String[]{"add", "."}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "other"}, "");
+        // head swaps every file for an unrelated one with the same boilerplate, and renames r.txt with an edit:
+        for (int i = 0; i < n; i++) {
+            gitletCommand(new String[]{"rm", "f" + i + ".txt"}, "");
+            Files.writeString(Path.of("g" + i + ".txt"), boilerplate + uniqueLines("g" + i, 14));
+        }
+        gitletCommand(new String[]{"rm", "r.txt"}, "");
+        Files.writeString(Path.of("r2.txt"), renamed.replace("theta", "THETA"));
+        gitletCommand(new String[]{"add", "."}, "");
+        gitletCommand(new String[]{"commit", "Replace"}, "");
+        // other edits the old files in place:
+        gitletCommand(new String[]{"checkout", "other"}, "");
+        for (int i = 0; i < n; i++) {
+            Files.writeString(Path.of("f" + i + ".txt"), boilerplate + uniqueLines("f" + i, 14) + "}\n");
+        }
+        Files.writeString(Path.of("r.txt"), renamed.replace("alpha", "ALPHA"));
+        gitletCommand(new String[]{"add", "."}, "");
+        gitletCommand(new String[]{"commit", "Edit"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+
+        Map<String, Long> counters = traceCounters("merge", "other");
+        // only the real rename is followed; the edited old files conflict with their deletion where they are:
+        assertEquals(renamed.replace("alpha", "ALPHA").replace("theta", "THETA"),
+                Files.readString(Path.of("r2.txt")));
+        assertFalse(Files.exists(Path.of("r.txt")));
+        for (int i = 0; i < n; i++) {
+            assertEquals(boilerplate + uniqueLines("g" + i, 14), Files.readString(Path.of("g" + i + ".txt")));
+            assertTrue(Files.readString(Path.of("f" + i + ".txt")).startsWith("<<<<<<<"));
+        }
+        // boilerplate alone (a fifth of the lines) makes few of the n * n pairs worth comparing:
+        long candidates = counters.getOrDefault("renameCandidates", 0L);
+        assertTrue(counters.toString(), candidates >= 1 && candidates < n * n / 10);
+    }
+
+    @Test
+    public void test69_checkoutRewritesOnlyChangedFiles() throws IOException {
+        i_prelude1();
+        for (int i = 0; i < 50; i++) {
+            Files.writeString(Path.of("f" + i + ".txt"), "file " + i + "\n");
+        }
+        gitletCommand(new String[]{"add", "."}, "");
+        gitletCommand(new String[]{"commit", "Base"}, "");
+        gitletCommand(new String[]{"branch", "side"}, "");
+        gitletCommand(new String[]{"checkout", "side"}, "");
+        for (int i = 0; i < 3; i++) {
+            Files.writeString(Path.of("f" + i + ".txt"), "side " + i + "\n");
+        }
+        gitletCommand(new String[]{"add", "f0.txt", "f1.txt", "f2.txt"}, "");
+        gitletCommand(new String[]{"commit", "Side"}, "");
+
+        // the same version on both branches but edited in the working tree is still restored:
+        Files.writeString(Path.of("f9.txt"), "edited\n");
+        Map<String, Long> counters = traceCounters("checkout", "main");
+        long written = 0;
+        for (int i = 0; i < 50; i++) {
+            assertEquals("file " + i + "\n", Files.readString(Path.of("f" + i + ".txt")));
+        }
+        for (String fileName : new String[]{"f0.txt", "f1.txt", "f2.txt", "f9.txt"}) {
+            written += Files.size(Path.of(fileName));
+        }
+        // both commits, then one snapshot per file rewritten; the other 46 are left alone
+        assertEquals(counters.toString(), (Long) 6L, counters.get("objectsRead"));
+        assertEquals(counters.toString(), (Long) written, counters.get("bytesWritten"));
+        gitletCommand(new String[]{"status"}, "=== Branches ===\n*main\nside\n\n=== Staged Files ===\n\n"
+                + "=== Removed Files ===\n\n=== Modifications Not Staged For Commit ===\n\n=== Untracked Files ===\n");
+
+        // the split point can be the second parent of a merge on head's first-parent chain:
+        Files.writeString(Path.of("f.txt"), "main 1\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Main 1"}, "");
+        gitletCommand(new String[]{"checkout", "side"}, "");
+        gitletCommand(new String[]{"merge", "main"}, "");
+        Files.writeString(Path.of("g.txt"), "side\n");
+        gitletCommand(new String[]{"add", "g.txt"}, "");
+        gitletCommand(new String[]{"commit", "Side 2"}, "");
+        gitletCommand(new String[]{"checkout", "main"}, "");
+        Files.writeString(Path.of("f.txt"), "main 2\n");
+        gitletCommand(new String[]{"add", "f.txt"}, "");
+        gitletCommand(new String[]{"commit", "Main 2"}, "");
+        gitletCommand(new String[]{"checkout", "side"}, "");
+        // splitting at Main 1 (not Base, where f.txt did not exist) makes this a clean take of main's edit
+        gitletCommand(new String[]{"merge", "main"}, "");
+        assertEquals("main 2\n", Files.readString(Path.of("f.txt")));
+        assertEquals("side\n", Files.readString(Path.of("g.txt")));
+    }
+
+    @Test
+    public void test70_libraryApi() throws IOException {
+        Path dirA = Files.createTempDirectory("gitlet-a"), dirB = Files.createTempDirectory("gitlet-b");
+        try {
+            // two repositories open side by side in one JVM, neither touching the other
+            GitletRepository a = GitletRepository.init(dirA.toFile()), b = GitletRepository.init(dirB.toFile());
+            Files.writeString(dirA.resolve("f.txt"), "a base\n");
+            Files.writeString(dirB.resolve("f.txt"), "b base\n");
+            a.add("f.txt");
+            b.add("f.txt");
+            assertEquals(List.of("f.txt"), a.status().getStagedFiles());
+            String aBase = a.commit("A base");
+            String bBase = b.commit("B base");
+            assertNotEquals(aBase, bBase);
+
+            a.branch("side");
+            a.checkoutBranch("side");
+            Files.writeString(dirA.resolve("g.txt"), "side\n");
+            a.add("g.txt");
+            a.commit("A side");
+            a.checkoutBranch("main");
+            assertFalse(Files.exists(dirA.resolve("g.txt")));
+            Files.writeString(dirA.resolve("f.txt"), "a main\n");
+            a.add("f.txt");
+            a.commit("A main");
+            MergeResult merged = a.merge("side");
+            assertFalse(merged.isFastForward());
+            assertFalse(merged.hasConflicts());
+            assertEquals("side\n", Files.readString(dirA.resolve("g.txt")));
+
+            List<String> aLog = new ArrayList<>(), bLog = new ArrayList<>();
+            for (Commit commit : a.log()) {
+                aLog.add(commit.getMessage());
+            }
+            for (Commit commit : b.log()) {
+                bLog.add(commit.getMessage());
+            }
+            assertEquals(List.of("Merged side into main.", "A main", "A base", "initial commit"), aLog);
+            assertEquals(List.of("B base", "initial commit"), bLog);
+            assertEquals(merged.getCommitHash(), a.log().iterator().next().getCommitHash());
+
+            Files.writeString(dirB.resolve("h.txt"), "h\n");
+            Files.writeString(dirA.resolve("u.txt"), "untracked\n");
+            b.add("h.txt");
+            Status aStatus = a.status(), bStatus = b.status();
+            assertEquals("main", aStatus.getCurrentBranch());
+            assertEquals(List.of("main", "side"), aStatus.getBranches());
+            assertEquals(List.of(), aStatus.getStagedFiles());
+            assertEquals(List.of("u.txt"), aStatus.getUntrackedFiles());
+            assertEquals(List.of("main"), bStatus.getBranches());
+            assertEquals(List.of("h.txt"), bStatus.getStagedFiles());
+            assertEquals(List.of(), bStatus.getUntrackedFiles());
+
+            // errors are thrown, carrying the message the command line prints
+            Files.delete(dirA.resolve("u.txt"));
+            i_prelude1();
+            for (Map.Entry<String[], Runnable> error : Map.<String[], Runnable>of(
+                    new String[]{"checkout", "nope"}, () -> a.checkoutBranch("nope"),
+                    new String[]{"branch", "main"}, () -> a.branch("main"),
+                    new String[]{"merge", "main"}, () -> a.merge("main"),
+                    new String[]{"rm", "nope.txt"}, () -> b.remove("nope.txt")).entrySet()) {
+                runGitletCommand(error.getKey());
+                String printed = getOutput().trim();
+                assertFalse(printed.isEmpty());
+                GitletException thrown = assertThrows(GitletException.class, error.getValue()::run);
+                assertEquals(printed, thrown.getMessage());
+            }
+        } finally {
+            deleteTree(dirA);
+            deleteTree(dirB);
+        }
+    }
+
+    private static String uniqueLines(String prefix, int count) {
+        StringBuilder lines = new StringBuilder();
+        for (int j = 0; j < count; j++) {
+            lines.append(prefix).append(" line ").append(j).append('\n');
+        }
+        return lines.toString();
+    }
+
+    private static List<String> logMessages(File dir) {
+        List<String> messages = new ArrayList<>();
+        for (gitlet.Commit commit : GitletRepository.open(dir).log()) {
+            messages.add(commit.getMessage());
+        }
+        return messages;
+    }
+
+    private static List<String> logCommitIds(File dir) {
+        List<String> ids = new ArrayList<>();
+        for (gitlet.Commit commit : GitletRepository.open(dir).log()) {
+            ids.add(commit.getCommitHash());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,151 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * A synthetic repository for benchmarks, built deterministically from a seed
+ * through the public repository API: fileCount files of about fileSize bytes,
+ * historyDepth commits on main each rewriting one percent of the files, and
+ * branchCount branches forked at evenly spaced points of that history, each
+ * with a commit of its own.
+ *
+ * @author Brandon Wong
+ */
+class BenchRepo {
+
+    // ==================== BenchRepo Metadata: ====================
+    private final File dir;
+    private final GitletRepository repo;
+    private final String mainTip;
+    private final List<String> branchTips;
+
+    private BenchRepo(File dir, GitletRepository repo, String mainTip, List<String> branchTips) {
+        this.dir = dir;
+        this.repo = repo;
+        this.mainTip = mainTip;
+        this.branchTips = branchTips;
+    }
+
+    /**
+     * Builds a repository with the given shape in a new temporary directory.
+     */
+    static BenchRepo build(int fileCount, int fileSize, int historyDepth, int branchCount, long seed) {
+        try {
+            File dir = Files.createTempDirectory("gitlet-bench").toFile();
+            Random random = new Random(seed);
+            GitletRepository repo = GitletRepository.init(dir);
+            repo.setAutoFlush(false);
+            for (int i = 0; i < fileCount; i++) {
+                writeFile(dir, fileName(i), fileSize, random);
+            }
+            repo.add(".");
+            String mainTip = repo.commit("Add " + fileCount + " files");
+
+            int churn = Math.max(1, fileCount / 100);
+            int forkEvery = Math.max(1, historyDepth / Math.max(1, branchCount));
+            List<String> branches = new ArrayList<>();
+            for (int c = 0; c < historyDepth; c++) {
+                if (c % forkEvery == 0 && branches.size() < branchCount) {
+                    String branch = "b" + branches.size();
+                    repo.branch(branch);
+                    branches.add(branch);
+                }
+                mainTip = rewriteFiles(repo, dir, fileCount, churn, fileSize, random, "Commit " + c);
+            }
+            while (branches.size() < branchCount) {
+                String branch = "b" + branches.size();
+                repo.branch(branch);
+                branches.add(branch);
+            }
+
+            List<String> branchTips = new ArrayList<>();
+            for (String branch : branches) {
+                repo.checkoutBranch(branch);
+                branchTips.add(rewriteFiles(repo, dir, fileCount, churn, fileSize, random,
+                        "Work on " + branch));
+            }
+            repo.checkoutBranch("main");
+            repo.flush();
+            repo.setAutoFlush(true);
+            return new BenchRepo(dir, repo, mainTip, branchTips);
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /**
+     * Deletes the repository's directory.
+     */
+    void delete() {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    // ==================== Getters: ====================
+
+    GitletRepository getRepo() {
+        return repo;
+    }
+
+    File getDir() {
+        return dir;
+    }
+
+    /**
+     * Hash of main's last commit.
+     */
+    String getMainTip() {
+        return mainTip;
+    }
+
+    /**
+     * Hash of the last commit of branch b{i}.
+     */
+    String getBranchTip(int i) {
+        return branchTips.get(i);
+    }
+
+    static String fileName(int i) {
+        return String.format("f%06d.txt", i);
+    }
+
+    // ==================== Helper Functions: ====================
+
+    /**
+     * Rewrites count random files and commits them. Returns the commit's hash.
+     */
+    private static String rewriteFiles(GitletRepository repo, File dir, int fileCount, int count,
+                                       int fileSize, Random random, String message) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = fileName(random.nextInt(fileCount));
+            writeFile(dir, names[i], fileSize, random);
+        }
+        repo.add(names);
+        return repo.commit(message);
+    }
+
+    /**
+     * Writes about size bytes of random numbered lines to the named file.
+     */
+    static void writeFile(File dir, String name, int size, Random random) {
+        StringBuilder content = new StringBuilder(size + 16);
+        while (content.length() < size) {
+            content.append("line ").append(random.nextInt(1_000_000)).append('\n');
+        }
+        Utils.writeContents(Utils.join(dir, name), content.toString());
+    }
+
+}
@@ -0,0 +1,202 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+/**
+ * The shape of a repository for RepoGenerator to write, given as
+ * "key=value" settings (on the command line or in a properties file).
+ * Everything random about the repository is drawn from seed, so one
+ * profile always generates the same objects and refs.
+ *
+ * @author Brandon Wong
+ */
+class GeneratorProfile {
+
+    // ==================== Keys: ====================
+    static final String SEED = "seed";
+    static final String FILES = "files";
+    static final String COMMITS = "commits";
+    static final String FAN_OUT = "fanOut";
+    static final String CHURN = "churn";
+    static final String ADD_RATE = "addRate";
+    static final String DELETE_RATE = "deleteRate";
+    static final String MERGE_RATE = "mergeRate";
+    static final String SIZE_MEDIAN = "sizeMedian";
+    static final String SIZE_SIGMA = "sizeSigma";
+    static final String LARGE_FILE_RATE = "largeFileRate";
+    static final String LARGE_FILE_SIZE = "largeFileSize";
+    static final String OBJECT_FORMAT = "objectFormat";
+
+    // ==================== GeneratorProfile Metadata: ====================
+    /** Seed of every random choice. */
+    private long seed = 1;
+    /** Files in the first commit. */
+    private int files = 1000;
+    /** Commits to write in all, merges and the first commit included. */
+    private int commits = 1000;
+    /** Topic branches open at once next to main. */
+    private int fanOut = 4;
+    /** Share of a branch's files each commit changes (at least one). */
+    private double churn = 0.01;
+    /** Share of changes that add a new file rather than modify one. */
+    private double addRate = 0.1;
+    /** Share of changes that delete a file rather than modify one. */
+    private double deleteRate = 0.05;
+    /** Chance at each commit that a topic branch is merged into main instead. */
+    private double mergeRate = 0.1;
+    /** Median size of a text file in bytes; sizes are log-normally distributed. */
+    private int sizeMedian = 2048;
+    /** Standard deviation of the natural log of text file sizes. */
+    private double sizeSigma = 1.0;
+    /** Share of new files that are large binary files. */
+    private double largeFileRate = 0.001;
+    /** Size of a large binary file on disk in bytes (random bytes below 128). */
+    private int largeFileSize = 1 << 20;
+    private String objectFormat = Hasher.SHA1;
+
+    /**
+     * Returns the default profile with the given settings applied. A setting
+     * "@path" reads settings from the properties file at path.
+     */
+    static GeneratorProfile parse(String... settings) {
+        Properties props = new Properties();
+        for (String setting : settings) {
+            if (setting.startsWith("@")) {
+                try (Reader in = Files.newBufferedReader(new File(setting.substring(1)).toPath(),
+                        StandardCharsets.UTF_8)) {
+                    props.load(in);
+                } catch (IOException excp) {
+                    throw new GitletException("Cannot read profile " + setting.substring(1));
+                }
+            } else {
+                int eq = setting.indexOf('=');
+                if (eq < 0) {
+                    throw new GitletException("Expected key=value: " + setting);
+                }
+                props.setProperty(setting.substring(0, eq).trim(), setting.substring(eq + 1).trim());
+            }
+        }
+        GeneratorProfile profile = new GeneratorProfile();
+        for (String key : props.stringPropertyNames()) {
+            profile.set(key, props.getProperty(key).trim());
+        }
+        profile.validate();
+        return profile;
+    }
+
+    private void set(String key, String value) {
+        try {
+            switch (key) {
+                case SEED -> seed = Long.parseLong(value);
+                case FILES -> files = Integer.parseInt(value);
+                case COMMITS -> commits = Integer.parseInt(value);
+                case FAN_OUT -> fanOut = Integer.parseInt(value);
+                case CHURN -> churn = Double.parseDouble(value);
+                case ADD_RATE -> addRate = Double.parseDouble(value);
+                case DELETE_RATE -> deleteRate = Double.parseDouble(value);
+                case MERGE_RATE -> mergeRate = Double.parseDouble(value);
+                case SIZE_MEDIAN -> sizeMedian = Integer.parseInt(value);
+                case SIZE_SIGMA -> sizeSigma = Double.parseDouble(value);
+                case LARGE_FILE_RATE -> largeFileRate = Double.parseDouble(value);
+                case LARGE_FILE_SIZE -> largeFileSize = Integer.parseInt(value);
+                case OBJECT_FORMAT -> objectFormat = Hasher.checkObjectFormat(value);
+                default -> throw new GitletException("Unknown profile setting: " + key);
+            }
+        } catch (NumberFormatException excp) {
+            throw new GitletException("Invalid value for " + key + ": " + value);
+        }
+    }
+
+    private void validate() {
+        check(files >= 1, FILES);
+        check(commits >= 1, COMMITS);
+        check(fanOut >= 0, FAN_OUT);
+        check(churn >= 0 && churn <= 1, CHURN);
+        check(addRate >= 0 && deleteRate >= 0 && addRate + deleteRate <= 1, ADD_RATE + "/" + DELETE_RATE);
+        check(mergeRate >= 0 && mergeRate <= 1, MERGE_RATE);
+        check(sizeMedian >= 1, SIZE_MEDIAN);
+        check(sizeSigma >= 0, SIZE_SIGMA);
+        check(largeFileRate >= 0 && largeFileRate <= 1, LARGE_FILE_RATE);
+        check(largeFileSize >= 0, LARGE_FILE_SIZE);
+    }
+
+    private static void check(boolean condition, String key) {
+        if (!condition) {
+            throw new GitletException("Invalid value for " + key);
+        }
+    }
+
+    // ==================== Getters: ====================
+
+    long getSeed() {
+        return seed;
+    }
+
+    int getFiles() {
+        return files;
+    }
+
+    int getCommits() {
+        return commits;
+    }
+
+    int getFanOut() {
+        return fanOut;
+    }
+
+    double getChurn() {
+        return churn;
+    }
+
+    double getAddRate() {
+        return addRate;
+    }
+
+    double getDeleteRate() {
+        return deleteRate;
+    }
+
+    double getMergeRate() {
+        return mergeRate;
+    }
+
+    int getSizeMedian() {
+        return sizeMedian;
+    }
+
+    double getSizeSigma() {
+        return sizeSigma;
+    }
+
+    double getLargeFileRate() {
+        return largeFileRate;
+    }
+
+    int getLargeFileSize() {
+        return largeFileSize;
+    }
+
+    String getObjectFormat() {
+        return objectFormat;
+    }
+
+    /**
+     * Returns every setting as "key=value" lines, which parse back into this
+     * profile.
+     */
+    @Override
+    public String toString() {
+        return SEED + "=" + seed + "\n" + FILES + "=" + files + "\n" + COMMITS + "=" + commits + "\n"
+                + FAN_OUT + "=" + fanOut + "\n" + CHURN + "=" + churn + "\n"
+                + ADD_RATE + "=" + addRate + "\n" + DELETE_RATE + "=" + deleteRate + "\n"
+                + MERGE_RATE + "=" + mergeRate + "\n" + SIZE_MEDIAN + "=" + sizeMedian + "\n"
+                + SIZE_SIGMA + "=" + sizeSigma + "\n" + LARGE_FILE_RATE + "=" + largeFileRate + "\n"
+                + LARGE_FILE_SIZE + "=" + largeFileSize + "\n" + OBJECT_FORMAT + "=" + objectFormat + "\n";
+    }
+
+}
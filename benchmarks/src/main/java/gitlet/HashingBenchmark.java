@@ -0,0 +1,94 @@
+package gitlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Object id hashing: the original Utils.sha1, the repository Hasher for both
+ * object formats, streaming a file from disk, and the fast in-memory hash.
+ *
+ * @author Brandon Wong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashingBenchmark {
+
+    @Param({"64", "4096", "1048576"})
+    public int contentSize;
+
+    private String content;
+    private File file;
+    private Hasher sha1;
+    private Hasher sha256;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        StringBuilder text = new StringBuilder(contentSize + 16);
+        Random random = new Random(42);
+        while (text.length() < contentSize) {
+            text.append("line ").append(random.nextInt(1_000_000)).append('\n');
+        }
+        content = text.substring(0, contentSize);
+        file = File.createTempFile("gitlet-hash", ".txt");
+        Files.writeString(file.toPath(), content);
+        sha1 = new Hasher(Hasher.SHA1);
+        sha256 = new Hasher(Hasher.SHA256);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public String utilsSha1() {
+        return Utils.sha1("f.txt", content);
+    }
+
+    @Benchmark
+    public String hasherSha1() {
+        return sha1.hash("f.txt", content);
+    }
+
+    @Benchmark
+    public String hasherSha256() {
+        return sha256.hash("f.txt", content);
+    }
+
+    @Benchmark
+    public String hashFileSha1() {
+        return sha1.hashFile("f.txt", file);
+    }
+
+    @Benchmark
+    public String readThenHashSha1() {
+        return sha1.hash("f.txt", Utils.readContentsAsString(file));
+    }
+
+    @Benchmark
+    public long fastHash() {
+        return Hasher.fastHash(content);
+    }
+
+}
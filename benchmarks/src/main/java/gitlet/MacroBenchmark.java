@@ -0,0 +1,313 @@
+package gitlet;
+
+import org.apache.commons.math3.stat.descriptive.rank.Median;
+import org.apache.commons.math3.stat.inference.MannWhitneyUTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static gitlet.Utils.*;
+
+/**
+ * End-to-end benchmark of the gitlet command line: runs each Scenario a
+ * number of times in a fresh directory, every command in a new JVM (through
+ * MeasuredMain), and records per command its wall time, CPU time, peak RSS
+ * and bytes read and written. Results are saved as tab-separated samples;
+ * given a baseline saved the same way, each command is compared with it and
+ * a metric is flagged as a regression when its median grew by more than
+ * the threshold and a one-sided Mann-Whitney U test says the growth is
+ * significant at level alpha. The exit status is 1 if anything regressed.
+ * <p>
+ * Usage: java -cp benchmarks.jar gitlet.MacroBenchmark [-n runs] [-w warmups]
+ * [-o results.tsv] [-b baseline.tsv] [-t percent] [-a alpha] [-java path]
+ * scenario...
+ *
+ * @author Brandon Wong
+ */
+class MacroBenchmark {
+
+    private static final String[] METRICS = {"wall_ms", "cpu_ms", "rss_kb", "read_bytes", "written_bytes"};
+
+    // ==================== Options: ====================
+    private int runs = 10;
+    private int warmups = 1;
+    private File output;
+    private File baseline;
+    private double thresholdPercent = 5;
+    private double alpha = 0.01;
+    private String java = ProcessHandle.current().info().command().orElse("java");
+    private final List<Scenario> scenarios = new ArrayList<>();
+
+    /** "scenario:line" -> command text, in scenario order. */
+    private final LinkedHashMap<String, String> commands = new LinkedHashMap<>();
+    /** "scenario:line" -> metric -> samples. */
+    private final LinkedHashMap<String, Map<String, List<Double>>> results = new LinkedHashMap<>();
+
+    public static void main(String... args) {
+        try {
+            MacroBenchmark bench = new MacroBenchmark();
+            bench.parseArgs(args);
+            bench.runAll();
+            boolean regressed = bench.report();
+            System.exit(regressed ? 1 : 0);
+        } catch (GitletException excp) {
+            System.out.println(excp.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "-n" -> runs = Integer.parseInt(value);
+                case "-w" -> warmups = Integer.parseInt(value);
+                case "-o" -> output = new File(value);
+                case "-b" -> baseline = new File(value);
+                case "-t" -> thresholdPercent = Double.parseDouble(value);
+                case "-a" -> alpha = Double.parseDouble(value);
+                case "-java" -> java = value;
+                default -> {
+                    scenarios.add(Scenario.read(new File(args[i])));
+                    continue;
+                }
+            }
+            if (value == null) {
+                throw new GitletException("Missing value for " + args[i]);
+            }
+            i++;
+        }
+        if (scenarios.isEmpty()) {
+            throw new GitletException("Usage: MacroBenchmark [-n runs] [-w warmups] [-o results.tsv] "
+                    + "[-b baseline.tsv] [-t percent] [-a alpha] [-java path] scenario...");
+        }
+    }
+
+    // ==================== Running: ====================
+
+    private void runAll() {
+        for (Scenario scenario : scenarios) {
+            for (int run = 0; run < warmups + runs; run++) {
+                System.out.printf("%s: %s %d/%d%n", scenario.getName(), run < warmups ? "warmup" : "run",
+                        run < warmups ? run + 1 : run - warmups + 1, run < warmups ? warmups : runs);
+                runOnce(scenario, run >= warmups);
+            }
+        }
+    }
+
+    /**
+     * Runs scenario in a new temporary directory, recording its commands'
+     * measurements if record.
+     */
+    private void runOnce(Scenario scenario, boolean record) {
+        File dir = null;
+        try {
+            dir = Files.createTempDirectory("gitlet-macro").toFile();
+            File measureFile = join(Files.createTempDirectory("gitlet-measure").toFile(), "m");
+            Random random = new Random(42);
+            for (Scenario.Step step : scenario.getSteps()) {
+                if (step.isSetup()) {
+                    setup(dir, step.getWords(), random);
+                    continue;
+                }
+                double[] measured = runCommand(dir, step.getWords(), measureFile);
+                if (record) {
+                    String key = scenario.getName() + ":" + step.getLine();
+                    commands.put(key, step.getText());
+                    Map<String, List<Double>> samples = results.computeIfAbsent(key,
+                            k -> new LinkedHashMap<>());
+                    for (int m = 0; m < METRICS.length; m++) {
+                        samples.computeIfAbsent(METRICS[m], k -> new ArrayList<>()).add(measured[m]);
+                    }
+                }
+            }
+            measureFile.delete();
+            measureFile.getParentFile().delete();
+        } catch (IOException excp) {
+            throw new GitletException(excp.getMessage());
+        } finally {
+            if (dir != null) {
+                deleteTree(dir);
+            }
+        }
+    }
+
+    private void setup(File dir, String[] words, Random random) {
+        switch (words[0]) {
+            case "files" -> {
+                for (int i = 0; i < Integer.parseInt(words[1]); i++) {
+                    BenchRepo.writeFile(dir, BenchRepo.fileName(i), Integer.parseInt(words[2]), random);
+                }
+            }
+            case "edit" -> {
+                List<String> names = plainFilenamesIn(dir);
+                for (int i = 0; i < Integer.parseInt(words[1]) && !names.isEmpty(); i++) {
+                    BenchRepo.writeFile(dir, names.get(random.nextInt(names.size())),
+                            Integer.parseInt(words[2]), random);
+                }
+            }
+            default -> RepoGenerator.generate(dir,
+                    GeneratorProfile.parse(Arrays.copyOfRange(words, 1, words.length)));
+        }
+    }
+
+    /**
+     * Runs one gitlet command in dir in a new JVM. Returns its measurements
+     * in METRICS order.
+     */
+    private double[] runCommand(File dir, String[] args, File measureFile) throws IOException {
+        List<String> command = new ArrayList<>(List.of(java, "-cp", classPath(),
+                "-Dgitlet.measure=" + measureFile.getPath(), "gitlet.MeasuredMain"));
+        command.addAll(Arrays.asList(args));
+        measureFile.delete();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).directory(dir)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        int status;
+        try {
+            status = process.waitFor();
+        } catch (InterruptedException excp) {
+            process.destroyForcibly();
+            throw new GitletException("Interrupted");
+        }
+        double wallMillis = (System.nanoTime() - start) / 1e6;
+        if (status != 0 || !measureFile.isFile()) {
+            throw new GitletException("gitlet " + String.join(" ", args) + " failed with status " + status);
+        }
+        String[] measured = readContentsAsString(measureFile).trim().split(" ");
+        double[] values = new double[METRICS.length];
+        values[0] = wallMillis;
+        for (int m = 1; m < METRICS.length; m++) {
+            values[m] = Double.parseDouble(measured[m - 1]);
+        }
+        return values;
+    }
+
+    /**
+     * Returns this JVM's class path with every entry made absolute, since
+     * commands run in another directory.
+     */
+    private static String classPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(new File(entry).getAbsolutePath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    // ==================== Reporting: ====================
+
+    /**
+     * Prints each command's medians, compared with the baseline if there is
+     * one, and saves the results if asked to. Returns true if any metric
+     * regressed.
+     */
+    private boolean report() {
+        Map<String, Map<String, List<Double>>> base = baseline == null ? Map.of() : readResults(baseline);
+        boolean regressed = false;
+        for (Map.Entry<String, Map<String, List<Double>>> entry : results.entrySet()) {
+            System.out.printf("%n%s  %s%n", entry.getKey(), commands.get(entry.getKey()));
+            Map<String, List<Double>> baseSamples = base.get(entry.getKey());
+            for (String metric : METRICS) {
+                List<Double> samples = entry.getValue().get(metric);
+                String line = String.format("  %-14s %14.1f", metric, median(samples));
+                if (baseSamples != null && baseSamples.containsKey(metric)) {
+                    List<Double> before = baseSamples.get(metric);
+                    double change = percentChange(median(before), median(samples));
+                    double p = increaseP(before, samples);
+                    boolean worse = change > thresholdPercent && p < alpha;
+                    regressed |= worse;
+                    line += String.format("  baseline %14.1f  %+7.1f%%  p=%.4f%s", median(before), change, p,
+                            worse ? "  REGRESSION" : "");
+                }
+                System.out.println(line);
+            }
+        }
+        if (output != null) {
+            writeResults(output);
+        }
+        if (baseline != null) {
+            System.out.println(regressed ? "\nRegressions found." : "\nNo regressions.");
+        }
+        return regressed;
+    }
+
+    private static double median(List<Double> samples) {
+        return new Median().evaluate(samples.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    private static double percentChange(double before, double after) {
+        if (before == 0) {
+            return after == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return (after - before) / Math.abs(before) * 100;
+    }
+
+    /**
+     * Returns the one-sided p-value of after being larger than before. When
+     * neither varies at all, the test is undefined and any change counts.
+     */
+    static double increaseP(List<Double> before, List<Double> after) {
+        double[] x = before.stream().mapToDouble(Double::doubleValue).toArray();
+        double[] y = after.stream().mapToDouble(Double::doubleValue).toArray();
+        if (Arrays.stream(x).distinct().count() == 1 && Arrays.stream(y).distinct().count() == 1) {
+            return y[0] > x[0] ? 0 : 1;
+        }
+        double p = new MannWhitneyUTest().mannWhitneyUTest(x, y);
+        return median(after) > median(before) ? p / 2 : 1 - p / 2;
+    }
+
+    // ==================== Results Files: ====================
+    // One line per command and metric: key, metric, command, samples (tab-separated).
+
+    private void writeResults(File file) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Map<String, List<Double>>> entry : results.entrySet()) {
+            for (Map.Entry<String, List<Double>> metric : entry.getValue().entrySet()) {
+                text.append(entry.getKey()).append('\t').append(metric.getKey()).append('\t')
+                        .append(commands.get(entry.getKey()));
+                for (double sample : metric.getValue()) {
+                    text.append('\t').append(sample);
+                }
+                text.append('\n');
+            }
+        }
+        writeContents(file, text.toString());
+    }
+
+    private static Map<String, Map<String, List<Double>>> readResults(File file) {
+        Map<String, Map<String, List<Double>>> read = new LinkedHashMap<>();
+        for (String line : LineDiff.splitLines(readContentsAsString(file))) {
+            String[] fields = line.strip().split("\t");
+            if (fields.length < 4) {
+                continue;
+            }
+            List<Double> samples = new ArrayList<>();
+            for (int i = 3; i < fields.length; i++) {
+                samples.add(Double.parseDouble(fields[i]));
+            }
+            read.computeIfAbsent(fields[0], k -> new LinkedHashMap<>()).put(fields[1], samples);
+        }
+        return read;
+    }
+
+    private static void deleteTree(File dir) {
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException excp) {
+            // best effort: it is a temporary directory
+        }
+    }
+
+}
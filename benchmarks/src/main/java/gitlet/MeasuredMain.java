@@ -0,0 +1,54 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs gitlet.Main in a process started by MacroBenchmark and, as the
+ * process exits, writes what it used to the file named by the
+ * gitlet.measure system property, as one line: CPU milliseconds, peak
+ * resident set in KiB, and bytes read and written through system calls.
+ * The last three come from /proc, and are -1 where it is not available.
+ *
+ * @author Brandon Wong
+ */
+public class MeasuredMain {
+
+    public static void main(String[] args) {
+        File out = new File(System.getProperty("gitlet.measure"));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> report(out)));
+        Main.main(args);
+    }
+
+    private static void report(File out) {
+        long cpuNanos = ((com.sun.management.OperatingSystemMXBean)
+                ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+        long rssKb = procValue("/proc/self/status", "VmHWM:");
+        long readBytes = procValue("/proc/self/io", "rchar:");
+        long writtenBytes = procValue("/proc/self/io", "wchar:");
+        Utils.writeContents(out, (cpuNanos / 1_000_000) + " " + rssKb + " " + readBytes + " "
+                + writtenBytes + "\n");
+    }
+
+    /**
+     * Returns the number after key in the given /proc file, or -1.
+     */
+    private static long procValue(String file, String key) {
+        try {
+            List<String> lines = Files.readAllLines(Path.of(file));
+            for (String line : lines) {
+                if (line.startsWith(key)) {
+                    return Long.parseLong(line.substring(key.length()).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | RuntimeException excp) {
+            // not on Linux
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,43 @@
+package gitlet;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A BenchRepo shared by the repository benchmarks, built once per trial
+ * from the shape parameters.
+ *
+ * @author Brandon Wong
+ */
+@State(Scope.Benchmark)
+public class RepoFixture {
+
+    @Param({"100", "1000"})
+    public int fileCount;
+
+    @Param({"1024"})
+    public int fileSize;
+
+    @Param({"50"})
+    public int historyDepth;
+
+    @Param({"4"})
+    public int branchCount;
+
+    BenchRepo bench;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bench = BenchRepo.build(fileCount, fileSize, historyDepth, branchCount, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bench.delete();
+    }
+
+}
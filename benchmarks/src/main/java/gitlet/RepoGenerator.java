@@ -0,0 +1,380 @@
+package gitlet;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static gitlet.Utils.*;
+
+/**
+ * Writes a synthetic repository straight into a .gitlet object store, far
+ * faster than building it through commands: a first commit of files, then
+ * commits spread over main and fanOut topic branches. Each commit changes a
+ * churn share of its branch's files (modifying, adding or deleting them),
+ * and at mergeRate a topic branch is merged into main, with its changes laid
+ * over main's, and a new topic is forked from main in its place. Merged
+ * topics keep their branches, so the refs grow with the merge graph.
+ * <p>
+ * Text files are lines of hex whose size is drawn log-normally; each new
+ * version of a file rewrites about a quarter of its lines, so diffs and
+ * merges see realistic partial changes. Large files are random bytes,
+ * rewritten whole. Every choice comes from the profile's seed, and commit
+ * dates and ids are fixed too (one minute apart from 2020-01-01 UTC), so a
+ * profile always generates the same objects and refs, with main checked
+ * out; only the initial commit made by init differs from run to run.
+ * <p>
+ * Usage: java -cp benchmarks.jar gitlet.RepoGenerator dir [key=value | @file]...
+ *
+ * @author Brandon Wong
+ */
+class RepoGenerator {
+
+    /** Date of the first generated commit: 2020-01-01 00:00:00 UTC. */
+    private static final long START_MILLIS = 1577836800000L;
+    private static final long COMMIT_INTERVAL_MILLIS = 60_000;
+    /** Characters per line of a generated text file. */
+    private static final int LINE_LENGTH = 34;
+    /** A line of a text file changes once every this many versions. */
+    private static final int EDIT_PERIOD = 4;
+
+    // ==================== RepoGenerator Metadata: ====================
+    private final GeneratorProfile profile;
+    private final File gitletDir;
+    private final Random random;
+    private final Hasher hasher;
+    private final ObjectStore store;
+    private final Refs refs;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy Z");
+    /** File name -> number of versions of it written so far. */
+    private final HashMap<String, Integer> versions = new HashMap<>();
+    private int nextFileId;
+    private int nextTopicId;
+    private int commitCount;
+    private int mergeCount;
+    private int snapCount;
+    private String mainTip;
+
+    private RepoGenerator(File workTree, GeneratorProfile profile) {
+        this.profile = profile;
+        this.gitletDir = join(workTree, ".gitlet");
+        this.random = new Random(profile.getSeed());
+        this.hasher = new Hasher(profile.getObjectFormat());
+        this.store = new ObjectStore(gitletDir);
+        this.refs = new Refs(gitletDir);
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    /**
+     * Initializes a repository in workTree and fills it as profile says.
+     */
+    static RepoGenerator generate(File workTree, GeneratorProfile profile) {
+        GitletRepository.init(workTree, profile.getObjectFormat());
+        RepoGenerator generator = new RepoGenerator(workTree, profile);
+        generator.run();
+        GitletRepository.open(workTree).reset(generator.mainTip);
+        return generator;
+    }
+
+    public static void main(String... args) {
+        if (args.length == 0) {
+            System.out.println("Usage: RepoGenerator <dir> [key=value | @profile.properties]...");
+            System.exit(1);
+        }
+        try {
+            File dir = new File(args[0]);
+            dir.mkdirs();
+            GeneratorProfile profile = GeneratorProfile.parse(
+                    Arrays.copyOfRange(args, 1, args.length));
+            long start = System.nanoTime();
+            RepoGenerator generator = generate(dir, profile);
+            System.out.print(profile);
+            System.out.printf("Generated %d commits (%d merges) and %d snapshots on %d branches in %d ms.%n",
+                    generator.commitCount, generator.mergeCount, generator.snapCount,
+                    generator.nextTopicId + 1, (System.nanoTime() - start) / 1_000_000);
+        } catch (GitletException excp) {
+            System.out.println(excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // ==================== Getters: ====================
+
+    String getMainTip() {
+        return mainTip;
+    }
+
+    int getCommitCount() {
+        return commitCount;
+    }
+
+    int getMergeCount() {
+        return mergeCount;
+    }
+
+    int getSnapCount() {
+        return snapCount;
+    }
+
+    // ==================== History: ====================
+
+    private void run() {
+        Branch main = new Branch("main", new Tree(), refs.getFront("main"));
+        LinkedHashMap<String, Integer> firstFiles = new LinkedHashMap<>();
+        for (int i = 0; i < profile.getFiles(); i++) {
+            firstFiles.put(newFileName(), 1);
+        }
+        writeSnaps(main, firstFiles);
+        commit(main, "Add " + profile.getFiles() + " files", null);
+
+        List<Branch> topics = new ArrayList<>();
+        for (int i = 0; i < profile.getFanOut(); i++) {
+            topics.add(fork(main));
+        }
+        while (commitCount < profile.getCommits()) {
+            if (!topics.isEmpty() && random.nextDouble() < profile.getMergeRate()) {
+                int t = random.nextInt(topics.size());
+                Branch topic = topics.get(t);
+                if (topic.commits > 0) {
+                    merge(main, topic);
+                    topics.set(t, fork(main));
+                    continue;
+                }
+            }
+            int b = random.nextInt(topics.size() + 1);
+            Branch branch = b == topics.size() ? main : topics.get(b);
+            writeSnaps(branch, pickChanges(branch));
+            commit(branch, "Commit " + commitCount, null);
+        }
+        for (Branch topic : topics) {
+            refs.setFront(topic.name, topic.tip);
+        }
+        mainTip = main.tip;
+        refs.flush(false, new Config(join(gitletDir, "config")).getLockTimeoutMillis());
+    }
+
+    private Branch fork(Branch main) {
+        return new Branch(String.format("topic-%06d", nextTopicId++), main.tree.copy(), main.tip);
+    }
+
+    /**
+     * Lays topic's changes over main's files and commits them to main as a
+     * merge of topic, whose branch stays where it is.
+     */
+    private void merge(Branch main, Branch topic) {
+        for (Map.Entry<String, String> change : topic.touched.entrySet()) {
+            if (change.getValue() == null) {
+                main.tree.remove(change.getKey());
+            } else {
+                main.tree.put(change.getKey(), change.getValue());
+            }
+        }
+        commit(main, "Merged " + topic.name + " into main.", topic.tip);
+        refs.setFront(topic.name, topic.tip);
+        mergeCount++;
+    }
+
+    /**
+     * Chooses the files a commit on branch changes, deleting some from its
+     * tree right away. Returns file name -> new version for the rest.
+     */
+    private LinkedHashMap<String, Integer> pickChanges(Branch branch) {
+        LinkedHashMap<String, Integer> changes = new LinkedHashMap<>();
+        int count = Math.max(1, (int) Math.round(profile.getChurn() * branch.tree.size()));
+        for (int i = 0; i < count; i++) {
+            double kind = random.nextDouble();
+            if (kind < profile.getAddRate() || branch.tree.size() == 0) {
+                changes.put(newFileName(), 1);
+            } else if (kind < profile.getAddRate() + profile.getDeleteRate() && branch.tree.size() > 1) {
+                String name = branch.tree.random(random);
+                branch.tree.remove(name);
+                branch.touched.put(name, null);
+                changes.remove(name);
+            } else {
+                String name = branch.tree.random(random);
+                changes.put(name, versions.merge(name, 1, Integer::sum));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Saves a snapshot of each file at its version, in parallel, and puts
+     * them in branch's tree.
+     */
+    private void writeSnaps(Branch branch, LinkedHashMap<String, Integer> files) {
+        List<String> names = new ArrayList<>(files.keySet());
+        List<String> hashes = names.parallelStream().map(name -> {
+            SnapShot snap = new SnapShot(name, content(name, files.get(name)), 1, hasher);
+            store.writeSnap(snap);
+            return snap.getHash();
+        }).toList();
+        for (int i = 0; i < names.size(); i++) {
+            branch.tree.put(names.get(i), hashes.get(i));
+            branch.touched.put(names.get(i), hashes.get(i));
+        }
+        snapCount += names.size();
+        store.discardUnsynced();
+    }
+
+    /**
+     * Commits branch's tree on top of its tip. The commit is written straight
+     * to its file rather than through ObjectStore, whose commit cache would
+     * keep every commit's file map alive.
+     */
+    private void commit(Branch branch, String message, String mergedParentHash) {
+        String timeStamp = dateFormat.format(new Date(START_MILLIS + commitCount * COMMIT_INTERVAL_MILLIS));
+        Commit commit = new Commit(message, branch.tree.snapshot(), timeStamp,
+                String.valueOf(commitCount), hasher);
+        commit.setParentHash(branch.tip);
+        commit.setMergedParentHash(mergedParentHash);
+        writeObjectAtomically(join(gitletDir, "commits", commit.getCommitHash()), commit, false);
+        branch.tip = commit.getCommitHash();
+        branch.commits++;
+        commitCount++;
+    }
+
+    // ==================== File Contents: ====================
+
+    private String newFileName() {
+        int id = nextFileId++;
+        boolean large = random.nextDouble() < profile.getLargeFileRate();
+        String name = String.format(large ? "f%07d.bin" : "f%07d.txt", id);
+        versions.put(name, 1);
+        return name;
+    }
+
+    /**
+     * Returns the given version of the named file, which depends on nothing
+     * else, so files can be generated in any order and on any thread.
+     */
+    private String content(String name, int version) {
+        long fileSeed = mix(profile.getSeed() ^ Hasher.fastHash(name));
+        Random fileRandom = new Random(fileSeed);
+        if (name.endsWith(".bin")) {
+            // random 7-bit values, so each char is one byte once written as UTF-8:
+            Random bytes = new Random(mix(fileSeed + version));
+            char[] chars = new char[profile.getLargeFileSize()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = (char) bytes.nextInt(128);
+            }
+            return new String(chars);
+        }
+        double logSize = Math.log(profile.getSizeMedian()) + profile.getSizeSigma() * fileRandom.nextGaussian();
+        int lines = (int) Math.max(1, Math.min(Integer.MAX_VALUE / LINE_LENGTH, Math.exp(logSize) / LINE_LENGTH));
+        StringBuilder text = new StringBuilder(lines * LINE_LENGTH);
+        for (int j = 0; j < lines; j++) {
+            long lineSeed = mix(fileSeed + j * 0x9E3779B97F4A7C15L);
+            long generation = (version + Long.remainderUnsigned(lineSeed, EDIT_PERIOD)) / EDIT_PERIOD;
+            long h = mix(lineSeed ^ generation);
+            appendHex(text, h);
+            text.append(' ');
+            appendHex(text, mix(h));
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Appends x as 16 hex digits.
+     */
+    private static void appendHex(StringBuilder text, long x) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            text.append(Character.forDigit((int) (x >>> shift) & 0xF, 16));
+        }
+    }
+
+    /**
+     * SplitMix64's finalizer: spreads the bits of x over the whole word.
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+    // ==================== Branches: ====================
+
+    /**
+     * A branch being generated: its files, its tip, and the files it changed
+     * since it was forked (null for deleted ones), which a merge carries over.
+     */
+    private static class Branch {
+        private final String name;
+        private final Tree tree;
+        private final HashMap<String, String> touched = new HashMap<>();
+        private String tip;
+        private int commits;
+
+        Branch(String name, Tree tree, String tip) {
+            this.name = name;
+            this.tree = tree;
+            this.tip = tip;
+        }
+    }
+
+    /**
+     * File name -> snapshot hash, with the names also kept in a list so a
+     * random file can be picked (and removed) in constant time.
+     */
+    private static class Tree {
+        private final HashMap<String, String> files;
+        private final ArrayList<String> names;
+        private final HashMap<String, Integer> positions;
+
+        Tree() {
+            this(new HashMap<>(), new ArrayList<>(), new HashMap<>());
+        }
+
+        private Tree(HashMap<String, String> files, ArrayList<String> names,
+                     HashMap<String, Integer> positions) {
+            this.files = files;
+            this.names = names;
+            this.positions = positions;
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        void put(String name, String hash) {
+            if (files.put(name, hash) == null) {
+                positions.put(name, names.size());
+                names.add(name);
+            }
+        }
+
+        void remove(String name) {
+            Integer position = positions.remove(name);
+            if (position == null) {
+                return;
+            }
+            files.remove(name);
+            String last = names.remove(names.size() - 1);
+            if (position < names.size()) {
+                names.set(position, last);
+                positions.put(last, position);
+            }
+        }
+
+        String random(Random random) {
+            return names.get(random.nextInt(names.size()));
+        }
+
+        HashMap<String, String> snapshot() {
+            return new HashMap<>(files);
+        }
+
+        Tree copy() {
+            return new Tree(new HashMap<>(files), new ArrayList<>(names), new HashMap<>(positions));
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package gitlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole repository operations on a RepoFixture: finding a split commit,
+ * status, checking out a branch (checkoutCommitAt), and merging, both in
+ * the working tree and in memory.
+ *
+ * @author Brandon Wong
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    /**
+     * Which branch the checkout benchmark goes to next.
+     */
+    @State(Scope.Thread)
+    public static class Toggle {
+        boolean onMain = true;
+    }
+
+    /**
+     * Puts main back where the fixture left it before each merge.
+     */
+    @State(Scope.Thread)
+    public static class MergeReset {
+        @Setup(Level.Invocation)
+        public void reset(RepoFixture fixture) {
+            fixture.bench.getRepo().reset(fixture.bench.getMainTip());
+        }
+    }
+
+    @Benchmark
+    public Commit splitCommit(RepoFixture fixture) {
+        return fixture.bench.getRepo().getSplitCommit(fixture.bench.getBranchTip(0),
+                fixture.bench.getMainTip());
+    }
+
+    @Benchmark
+    public Status status(RepoFixture fixture) {
+        return fixture.bench.getRepo().status();
+    }
+
+    @Benchmark
+    public void checkoutBranch(RepoFixture fixture, Toggle toggle) {
+        fixture.bench.getRepo().checkoutBranch(toggle.onMain ? "b0" : "main");
+        toggle.onMain = !toggle.onMain;
+    }
+
+    @Benchmark
+    public MergeTreeResult mergeTree(RepoFixture fixture) {
+        return fixture.bench.getRepo().mergeTree("main", "b0", null);
+    }
+
+    @Benchmark
+    public MergeResult merge(RepoFixture fixture, MergeReset reset) {
+        return fixture.bench.getRepo().merge("b0");
+    }
+
+}
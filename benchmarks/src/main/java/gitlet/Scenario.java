@@ -0,0 +1,136 @@
+package gitlet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static gitlet.Utils.*;
+
+/**
+ * A scripted sequence of gitlet commands for MacroBenchmark, read from a
+ * file with one step per line. A line is the arguments of one gitlet
+ * command (words split on spaces, "double quotes" keeping a word together),
+ * which is timed; a line starting with '!' is an untimed setup directive:
+ * <pre>
+ *   !files N SIZE        write N files f000000.txt... of about SIZE bytes
+ *   !edit N SIZE         rewrite N random files among f000000.txt...
+ *   !generate key=value  initialize with RepoGenerator and this profile
+ * </pre>
+ * Blank lines and lines starting with '#' are skipped.
+ *
+ * @author Brandon Wong
+ */
+class Scenario {
+
+    // ==================== Scenario Metadata: ====================
+    private final String name;
+    private final List<Step> steps = new ArrayList<>();
+
+    private Scenario(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Reads the scenario in file, named after the file without extension.
+     */
+    static Scenario read(File file) {
+        Scenario scenario = new Scenario(file.getName().replaceFirst("\\.[^.]*$", ""));
+        List<String> lines = LineDiff.splitLines(readContentsAsString(file));
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            boolean setup = line.startsWith("!");
+            List<String> words = split(setup ? line.substring(1) : line);
+            if (setup) {
+                checkDirective(file, i + 1, words);
+            }
+            scenario.steps.add(new Step(i + 1, line, setup, words.toArray(new String[0])));
+        }
+        return scenario;
+    }
+
+    private static void checkDirective(File file, int line, List<String> words) {
+        boolean ok = switch (words.isEmpty() ? "" : words.get(0)) {
+            case "files", "edit" -> words.size() == 3 && words.get(1).matches("\\d+")
+                    && words.get(2).matches("\\d+");
+            case "generate" -> true;
+            default -> false;
+        };
+        if (!ok) {
+            throw new GitletException(file.getName() + ":" + line + ": bad directive " + words);
+        }
+    }
+
+    /**
+     * Splits line into words on spaces, keeping "quoted text" as one word.
+     */
+    static List<String> split(String line) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = null;
+        boolean quoted = false;
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+                word = word == null ? new StringBuilder() : word;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (word != null) {
+                    words.add(word.toString());
+                    word = null;
+                }
+            } else {
+                word = word == null ? new StringBuilder() : word;
+                word.append(c);
+            }
+        }
+        if (word != null) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    // ==================== Getters: ====================
+
+    String getName() {
+        return name;
+    }
+
+    List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * One line of a scenario: a gitlet command, or a setup directive.
+     */
+    static class Step {
+        private final int line;
+        private final String text;
+        private final boolean setup;
+        private final String[] words;
+
+        Step(int line, String text, boolean setup, String[] words) {
+            this.line = line;
+            this.text = text;
+            this.setup = setup;
+            this.words = words;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        boolean isSetup() {
+            return setup;
+        }
+
+        String[] getWords() {
+            return words;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package gitlet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java serialization of commits, which is how every commit is stored:
+ * serialize, decode from bytes, and read back from a file (what
+ * ObjectStore.readCommit costs on a cache miss), by number of tracked files.
+ *
+ * @author Brandon Wong
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int trackedFiles;
+
+    private Commit commit;
+    private byte[] bytes;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Hasher hasher = new Hasher(Hasher.SHA1);
+        HashMap<String, String> snapShots = new HashMap<>();
+        for (int i = 0; i < trackedFiles; i++) {
+            String name = BenchRepo.fileName(i);
+            snapShots.put(name, hasher.hash(name, String.valueOf(i)));
+        }
+        commit = new Commit("benchmark commit", snapShots, hasher);
+        bytes = Utils.serialize(commit);
+        file = File.createTempFile("gitlet-commit", ".bin");
+        Utils.writeContents(file, (Object) bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return Utils.serialize(commit);
+    }
+
+    @Benchmark
+    public Commit decode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Commit) in.readObject();
+        }
+    }
+
+    @Benchmark
+    public Commit readObject() {
+        return Utils.readObject(file, Commit.class);
+    }
+
+}
@@ -1,8 +1,6 @@
 package gitlet;
 
-import java.io.File;
 import java.io.Serializable;
-import java.util.HashMap;
 
 /**
  * Represents a gitlet branch object. (name and hash of front commit)
@@ -33,41 +31,4 @@ public class Branch implements Serializable {
         this.frontCommitHash = frontCommitHash;
     }
 
-    public Commit getFrontCommit() {
-        return RepoUtils.getCommitFromHash(frontCommitHash);
-    }
-
-    // ==================== Misc Methods: ====================
-
-    /**
-     * Saves branch in Branch directory as file "{branch name}"
-     */
-    public void save() {
-        File thisCommitFile = Utils.join(Repository.BRANCHES_DIR, name);
-        Utils.writeObject(thisCommitFile, this);
-    }
-
-    /**
-     * Moves branches pointer to given Hash, serializes changes.
-     */
-    public void moveFrontTo(String newHash) {
-        setFrontCommitHash(newHash);
-        this.save();
-    }
-
-    /**
-     * Adds a new commit with given message & hashmap of snapshots to front of branch
-     * Returns the hash of the newly created commit
-     */
-    public String addNewCommitWith(String message, HashMap<String, String> snapShots) {
-        Commit newCommit = new Commit(message, snapShots);
-        newCommit.setParentHash(frontCommitHash);
-        this.setFrontCommitHash(newCommit.getCommitHash());
-
-        newCommit.save();
-        this.save();
-
-        return newCommit.getCommitHash();
-    }
-
 }
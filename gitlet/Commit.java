@@ -13,6 +13,9 @@ import java.util.Date;
  */
 public class Commit implements Serializable {
 
+    /** How commit timestamps are written. */
+    private static final String DATE_FORMAT = "EEE MMM d HH:mm:ss yyyy Z";
+
     // ==================== Commit Metadata: ====================
     private final String message;
     private final String timeStamp;
@@ -30,10 +33,28 @@ public class Commit implements Serializable {
      * @param snapShots - files it is pointing to
      */
     public Commit(String message, HashMap<String, String> snapShots) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("EEE MMM d HH:mm:ss yyyy Z");
+        this(message, snapShots, new Hasher(Hasher.SHA1));
+    }
+
+    /**
+     * Like the constructor above, with the id computed by hasher.
+     */
+    public Commit(String message, HashMap<String, String> snapShots, Hasher hasher) {
+        this(message, snapShots, new SimpleDateFormat(DATE_FORMAT).format(new Date()),
+                String.valueOf(Math.random()), hasher);
+    }
+
+    /**
+     * Makes a commit with a given timestamp, formatted like
+     * "Thu Jan 1 00:00:00 1970 +0000", whose id is hashed from its message,
+     * timestamp and salt: the same inputs always give the same commit, as
+     * repository generators need.
+     */
+    Commit(String message, HashMap<String, String> snapShots, String timeStamp, String salt,
+           Hasher hasher) {
         this.message = message;
-        this.timeStamp = dateFormat.format(new Date());
-        this.commitHash = Utils.sha1(message, timeStamp, String.valueOf(Math.random()));
+        this.timeStamp = timeStamp;
+        this.commitHash = hasher.hash(message, timeStamp, salt);
         this.snapShots = snapShots;
         this.parentHash = null;
         this.mergedParentHash = null;
@@ -75,14 +96,6 @@ public class Commit implements Serializable {
 
     // ==================== Misc Methods: ====================
 
-    /**
-     * Saves Commit in Commits directory as file "{commit sha1}"
-     */
-    public void save() {
-        File thisCommitFile = Utils.join(Repository.COMMITS_DIR, commitHash);
-        Utils.writeObject(thisCommitFile, this);
-    }
-
     /**
      * Returns true if commit contains given fileName
      */
@@ -90,31 +103,14 @@ public class Commit implements Serializable {
         return snapShots.containsKey(fileName);
     }
 
-    /**
-     * returns true if provided content is modified in cwd
-     * (file {name} is different from its version in the commit)
-     * false if
-     */
-    public boolean isContentModded(String fileName) {
-        String mappedVal = snapShots.get(fileName);
-        if (mappedVal != null) {
-            String commitContent = getContentOfFile(fileName);
-            File cwdFile = Utils.join(Repository.CWD, fileName);
-            String cwdContent = Utils.readContentsAsString(cwdFile);
-            return !commitContent.equals(cwdContent);
-        } else {
-            return false;
-        }
-    }
-
     /**
      * Note: do not use unless you have verified that the given commit
      * contains file named {name} (use contains() method first)
      */
-    public String getContentOfFile(String fileName) {
+    public String getContentOfFile(String fileName, File snapsDir) {
         String mappedVal = snapShots.get(fileName);
         if (mappedVal != null) {
-            File location = Utils.join(Repository.SNAPS_DIR, mappedVal);
+            File location = Utils.join(snapsDir, mappedVal);
             SnapShot requestedSnap = Utils.readObject(location, SnapShot.class);
             return requestedSnap.getContent();
         } else {
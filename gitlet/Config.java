@@ -0,0 +1,190 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static gitlet.Utils.*;
+
+/**
+ * Per-repository settings, stored as "key=value" lines in .gitlet/config.
+ * Read once on first use; unset keys fall back to their defaults.
+ *
+ * @author Brandon Wong
+ */
+class Config {
+
+    // ==================== Keys: ====================
+    static final String DURABILITY = "core.durability";
+    static final String LOCK_TIMEOUT = "core.lockTimeout";
+    static final String GC_GRACE_PERIOD = "gc.gracePeriod";
+    static final String RERERE_ENABLED = "rerere.enabled";
+    static final String METRICS_ENABLED = "metrics.enabled";
+    /** Hash function for object ids; fixed when the repository is initialized. */
+    static final String OBJECT_FORMAT = "core.objectFormat";
+
+    // ==================== Durability Levels: ====================
+    // How hard a flush tries to survive a crash of the machine (a crash of
+    // the process alone never loses a flushed update, since objects and refs
+    // are always replaced atomically).
+    /** Never force anything to disk; fastest, relies on the OS cache. */
+    static final String DURABILITY_NONE = "none";
+    /** Force new objects to disk before the refs that point at them change. */
+    static final String DURABILITY_OBJECTS = "objects";
+    /** Like objects, and also force refs and the index themselves. */
+    static final String DURABILITY_FULL = "full";
+
+    private final File configFile;
+    private Properties props;
+
+    Config(File configFile) {
+        this.configFile = configFile;
+    }
+
+    // ==================== Getters and Setters: ====================
+
+    /**
+     * Returns the value of key, or null if it is not set.
+     */
+    String get(String key) {
+        return load().getProperty(key);
+    }
+
+    /**
+     * Sets key to value after checking that key is one of the keys above and
+     * the value is valid for it, and saves the config.
+     */
+    void set(String key, String value) {
+        if (key.equals(OBJECT_FORMAT)) {
+            throw new GitletException(OBJECT_FORMAT + " can only be chosen by init.");
+        } else if (key.equals(DURABILITY)) {
+            checkDurability(value);
+        } else if (key.equals(LOCK_TIMEOUT) || key.equals(GC_GRACE_PERIOD)) {
+            parseLong(key, value);
+        } else if (key.equals(RERERE_ENABLED) || key.equals(METRICS_ENABLED)) {
+            parseBoolean(key, value);
+        } else {
+            throw new GitletException("Unknown config key: " + key);
+        }
+        save(key, value);
+    }
+
+    /**
+     * Records the object format of a repository being initialized.
+     */
+    void initObjectFormat(String objectFormat) {
+        save(OBJECT_FORMAT, Hasher.checkObjectFormat(objectFormat));
+    }
+
+    private void save(String key, String value) {
+        load().setProperty(key, value);
+        StringWriter out = new StringWriter();
+        try {
+            props.store(out, null);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp);
+        }
+        writeContentsAtomically(configFile, false, out.toString());
+    }
+
+    /**
+     * Returns one of the DURABILITY_* levels, objects by default.
+     */
+    String getDurability() {
+        String value = get(DURABILITY);
+        return value == null ? DURABILITY_OBJECTS : checkDurability(value);
+    }
+
+    /**
+     * Returns how many milliseconds to wait for a lock held by another
+     * process before giving up, 10 seconds by default.
+     */
+    long getLockTimeoutMillis() {
+        return getLong(LOCK_TIMEOUT, 10000);
+    }
+
+    /**
+     * Returns how many seconds gc leaves unreachable objects alone after they
+     * were written, two weeks by default. Protects objects that an operation
+     * still in progress has written but not yet pointed a ref at.
+     */
+    long getGcGracePeriodSeconds() {
+        return getLong(GC_GRACE_PERIOD, 14 * 24 * 60 * 60);
+    }
+
+    /**
+     * Returns the hash function object ids are computed with, sha1 by default.
+     */
+    String getObjectFormat() {
+        String value = get(OBJECT_FORMAT);
+        return value == null ? Hasher.SHA1 : Hasher.checkObjectFormat(value.trim());
+    }
+
+    /**
+     * Returns whether conflict resolutions are recorded and reused, off by
+     * default.
+     */
+    boolean isRerereEnabled() {
+        String value = get(RERERE_ENABLED);
+        return value != null && parseBoolean(RERERE_ENABLED, value);
+    }
+
+    /**
+     * Returns whether each command's latency is recorded under
+     * .gitlet/metrics, off by default.
+     */
+    boolean isMetricsEnabled() {
+        String value = get(METRICS_ENABLED);
+        return value != null && parseBoolean(METRICS_ENABLED, value);
+    }
+
+    // ==================== Misc Methods: ====================
+
+    private long getLong(String key, long defaultValue) {
+        String value = get(key);
+        return value == null ? defaultValue : parseLong(key, value);
+    }
+
+    private static long parseLong(String key, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException excp) {
+            throw new GitletException("Invalid value for " + key + ": " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String key, String value) {
+        if (!value.trim().equals("true") && !value.trim().equals("false")) {
+            throw new GitletException("Invalid value for " + key + ": " + value);
+        }
+        return value.trim().equals("true");
+    }
+
+    private static String checkDurability(String value) {
+        if (!value.equals(DURABILITY_NONE) && !value.equals(DURABILITY_OBJECTS)
+                && !value.equals(DURABILITY_FULL)) {
+            throw new GitletException("Invalid value for " + DURABILITY + ": " + value);
+        }
+        return value;
+    }
+
+    private Properties load() {
+        if (props == null) {
+            props = new Properties();
+            if (configFile.isFile()) {
+                try (Reader in = Files.newBufferedReader(configFile.toPath(),
+                        StandardCharsets.UTF_8)) {
+                    props.load(in);
+                } catch (IOException excp) {
+                    throw new IllegalArgumentException(excp);
+                }
+            }
+        }
+        return props;
+    }
+
+}
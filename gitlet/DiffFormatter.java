@@ -0,0 +1,156 @@
+package gitlet;
+
+import java.util.List;
+
+/**
+ * Renders FileDiffs for the diff command: as a unified patch, as a diffstat,
+ * or as bare file names. Only the first two read file contents.
+ *
+ * @author Brandon Wong
+ */
+class DiffFormatter {
+
+    /** Unchanged lines shown around each change in a patch. */
+    private static final int CONTEXT = 3;
+    /** Widest a diffstat bar may get before it is scaled down. */
+    private static final int STAT_WIDTH = 50;
+
+    // ==================== Formats: ====================
+
+    /**
+     * Returns diffs as a unified patch.
+     */
+    static String patch(List<FileDiff> diffs) {
+        StringBuilder out = new StringBuilder();
+        for (FileDiff diff : diffs) {
+            String name = diff.getName();
+            out.append("diff --git a/").append(name).append(" b/").append(name).append('\n');
+            if (diff.isAdded()) {
+                out.append("new file\n");
+            } else if (diff.isDeleted()) {
+                out.append("deleted file\n");
+            }
+            out.append("--- ").append(diff.isAdded() ? "/dev/null" : "a/" + name).append('\n');
+            out.append("+++ ").append(diff.isDeleted() ? "/dev/null" : "b/" + name).append('\n');
+            List<String> a = LineDiff.splitLines(diff.getOldContent()),
+                    b = LineDiff.splitLines(diff.getNewContent());
+            List<Edit> edits = LineDiff.diff(a, b);
+            int i = 0;
+            while (i < edits.size()) {
+                int last = i;
+                while (last + 1 < edits.size()
+                        && edits.get(last + 1).getAStart() - edits.get(last).getAEnd() <= 2 * CONTEXT) {
+                    last++;
+                }
+                appendHunk(out, a, b, edits.subList(i, last + 1));
+                i = last + 1;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns a diffstat of diffs: a line per file with its number of changed
+     * lines and a bar of +s and -s, then a summary line.
+     */
+    static String stat(List<FileDiff> diffs) {
+        int n = diffs.size();
+        int[] insertions = new int[n], deletions = new int[n];
+        int nameWidth = 0, maxChanges = 0, totalIns = 0, totalDel = 0;
+        for (int f = 0; f < n; f++) {
+            FileDiff diff = diffs.get(f);
+            for (Edit edit : LineDiff.diff(LineDiff.splitLines(diff.getOldContent()),
+                    LineDiff.splitLines(diff.getNewContent()))) {
+                insertions[f] += edit.getBEnd() - edit.getBStart();
+                deletions[f] += edit.getAEnd() - edit.getAStart();
+            }
+            nameWidth = Math.max(nameWidth, diff.getName().length());
+            maxChanges = Math.max(maxChanges, insertions[f] + deletions[f]);
+            totalIns += insertions[f];
+            totalDel += deletions[f];
+        }
+        int countWidth = String.valueOf(maxChanges).length();
+        StringBuilder out = new StringBuilder();
+        for (int f = 0; f < n; f++) {
+            int plus = insertions[f], minus = deletions[f];
+            if (maxChanges > STAT_WIDTH) {
+                plus = scale(plus, maxChanges);
+                minus = scale(minus, maxChanges);
+            }
+            out.append(' ').append(String.format("%-" + nameWidth + "s", diffs.get(f).getName()))
+                    .append(" | ").append(String.format("%" + countWidth + "d", insertions[f] + deletions[f]))
+                    .append(' ').append("+".repeat(plus)).append("-".repeat(minus)).append('\n');
+        }
+        if (n > 0) {
+            out.append(' ').append(n).append(n == 1 ? " file changed" : " files changed");
+            if (totalIns > 0 || totalDel == 0) {
+                out.append(", ").append(totalIns).append(totalIns == 1 ? " insertion(+)" : " insertions(+)");
+            }
+            if (totalDel > 0 || totalIns == 0) {
+                out.append(", ").append(totalDel).append(totalDel == 1 ? " deletion(-)" : " deletions(-)");
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the names of the files in diffs, one per line.
+     */
+    static String nameOnly(List<FileDiff> diffs) {
+        StringBuilder out = new StringBuilder();
+        for (FileDiff diff : diffs) {
+            out.append(diff.getName()).append('\n');
+        }
+        return out.toString();
+    }
+
+    // ==================== Helper Functions: ====================
+
+    /**
+     * Appends one hunk covering edits, which are close enough together to
+     * share their context lines.
+     */
+    private static void appendHunk(StringBuilder out, List<String> a, List<String> b, List<Edit> edits) {
+        Edit first = edits.get(0), last = edits.get(edits.size() - 1);
+        int aStart = Math.max(0, first.getAStart() - CONTEXT),
+                aEnd = Math.min(a.size(), last.getAEnd() + CONTEXT);
+        int bStart = first.getBStart() - (first.getAStart() - aStart),
+                bEnd = last.getBEnd() + (aEnd - last.getAEnd());
+        out.append("@@ -").append(range(aStart, aEnd - aStart))
+                .append(" +").append(range(bStart, bEnd - bStart)).append(" @@\n");
+        int pos = aStart;
+        for (Edit edit : edits) {
+            appendLines(out, ' ', a, pos, edit.getAStart());
+            appendLines(out, '-', a, edit.getAStart(), edit.getAEnd());
+            appendLines(out, '+', b, edit.getBStart(), edit.getBEnd());
+            pos = edit.getAEnd();
+        }
+        appendLines(out, ' ', a, pos, aEnd);
+    }
+
+    /**
+     * Returns a hunk header range: 1-based start and line count, where an
+     * empty range starts at the line before it and a count of 1 is left out.
+     */
+    private static String range(int start, int count) {
+        if (count == 1) {
+            return String.valueOf(start + 1);
+        }
+        return (count == 0 ? start : start + 1) + "," + count;
+    }
+
+    private static void appendLines(StringBuilder out, char prefix, List<String> lines, int from, int to) {
+        for (String line : lines.subList(from, to)) {
+            out.append(prefix).append(line);
+            if (!line.endsWith("\n")) {
+                out.append("\n\\ No newline at end of file\n");
+            }
+        }
+    }
+
+    private static int scale(int changes, int maxChanges) {
+        return changes == 0 ? 0 : Math.max(1, changes * STAT_WIDTH / maxChanges);
+    }
+
+}
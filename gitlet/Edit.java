@@ -0,0 +1,43 @@
+package gitlet;
+
+/**
+ * One region where two versions of a file differ: lines [aStart, aEnd) of
+ * the old version were replaced by lines [bStart, bEnd) of the new one. An
+ * empty old range is an insertion, an empty new range a deletion.
+ *
+ * @author Brandon Wong
+ */
+class Edit {
+
+    // ==================== Edit Metadata: ====================
+    private final int aStart;
+    private final int aEnd;
+    private final int bStart;
+    private final int bEnd;
+
+    Edit(int aStart, int aEnd, int bStart, int bEnd) {
+        this.aStart = aStart;
+        this.aEnd = aEnd;
+        this.bStart = bStart;
+        this.bEnd = bEnd;
+    }
+
+    // ==================== Getters: ====================
+
+    int getAStart() {
+        return aStart;
+    }
+
+    int getAEnd() {
+        return aEnd;
+    }
+
+    int getBStart() {
+        return bStart;
+    }
+
+    int getBEnd() {
+        return bEnd;
+    }
+
+}
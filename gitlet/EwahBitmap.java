@@ -0,0 +1,332 @@
+package gitlet;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable compressed bitmap in the style of EWAH: the bits are cut into
+ * 64-bit words, and runs of all-zero or all-one words are stored as a count
+ * instead of word by word. The encoding is a sequence of marker words, each
+ * followed by the literal words it announces; a marker holds the bit value of
+ * its run (bit 0), the run's length in words (bits 1-32) and the number of
+ * literal words after it (bits 33-63).
+ * <p>
+ * and, or and andNot work directly on the compressed form, skipping over
+ * whole runs at once, so combining the reachability bitmaps of two commits
+ * costs time proportional to their compressed size rather than the number of
+ * objects in the repository.
+ *
+ * @author Brandon Wong
+ */
+class EwahBitmap implements Serializable {
+
+    private static final long MAX_RUN = 0xFFFFFFFFL;
+    private static final int MAX_LITERALS = Integer.MAX_VALUE;
+
+    // ==================== EwahBitmap Metadata: ====================
+    private final long[] words;
+
+    private EwahBitmap(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Returns a compressed copy of bits.
+     */
+    static EwahBitmap of(BitSet bits) {
+        Builder builder = new Builder();
+        for (long word : bits.toLongArray()) {
+            builder.addWord(word);
+        }
+        return builder.build();
+    }
+
+    static EwahBitmap empty() {
+        return new EwahBitmap(new long[0]);
+    }
+
+    // ==================== Queries: ====================
+
+    boolean get(int bit) {
+        long wordIndex = bit >>> 6;
+        Cursor cursor = new Cursor(this);
+        cursor.skip(wordIndex);
+        return cursor.hasNext() && (cursor.nextWord() & (1L << (bit & 63))) != 0;
+    }
+
+    /**
+     * Returns the number of set bits.
+     */
+    long cardinality() {
+        long count = 0;
+        Cursor cursor = new Cursor(this);
+        while (cursor.hasNext()) {
+            if (cursor.isRun()) {
+                count += cursor.runBit() ? 64 * cursor.runRemaining() : 0;
+                cursor.skip(cursor.runRemaining());
+            } else {
+                count += Long.bitCount(cursor.nextWord());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Calls action with the index of every set bit, in increasing order.
+     */
+    void forEach(IntConsumer action) {
+        Cursor cursor = new Cursor(this);
+        long wordIndex = 0;
+        while (cursor.hasNext()) {
+            if (cursor.isRun() && !cursor.runBit()) {
+                long n = cursor.runRemaining();
+                cursor.skip(n);
+                wordIndex += n;
+                continue;
+            }
+            long word = cursor.nextWord();
+            while (word != 0) {
+                action.accept((int) (wordIndex * 64 + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+            wordIndex++;
+        }
+    }
+
+    BitSet toBitSet() {
+        BitSet bits = new BitSet();
+        forEach(bits::set);
+        return bits;
+    }
+
+    // ==================== Logical Operations: ====================
+
+    EwahBitmap and(EwahBitmap other) {
+        Cursor a = new Cursor(this), b = new Cursor(other);
+        Builder out = new Builder();
+        while (a.hasNext() && b.hasNext()) {
+            if (a.isRun() && !a.runBit()) {
+                skipBoth(out, false, a.runRemaining(), a, b);
+            } else if (b.isRun() && !b.runBit()) {
+                skipBoth(out, false, b.runRemaining(), a, b);
+            } else if (a.isRun() && b.isRun()) {
+                skipBoth(out, true, Math.min(a.runRemaining(), b.runRemaining()), a, b);
+            } else {
+                out.addWord(a.nextWord() & b.nextWord());
+            }
+        }
+        return out.build();
+    }
+
+    EwahBitmap or(EwahBitmap other) {
+        Cursor a = new Cursor(this), b = new Cursor(other);
+        Builder out = new Builder();
+        while (a.hasNext() && b.hasNext()) {
+            if (a.isRun() && a.runBit()) {
+                skipBoth(out, true, a.runRemaining(), a, b);
+            } else if (b.isRun() && b.runBit()) {
+                skipBoth(out, true, b.runRemaining(), a, b);
+            } else if (a.isRun() && b.isRun()) {
+                skipBoth(out, false, Math.min(a.runRemaining(), b.runRemaining()), a, b);
+            } else {
+                out.addWord(a.nextWord() | b.nextWord());
+            }
+        }
+        out.addRest(a.hasNext() ? a : b);
+        return out.build();
+    }
+
+    /**
+     * Returns the bits set here but not in other.
+     */
+    EwahBitmap andNot(EwahBitmap other) {
+        Cursor a = new Cursor(this), b = new Cursor(other);
+        Builder out = new Builder();
+        while (a.hasNext() && b.hasNext()) {
+            if (a.isRun() && !a.runBit()) {
+                skipBoth(out, false, a.runRemaining(), a, b);
+            } else if (b.isRun() && b.runBit()) {
+                skipBoth(out, false, b.runRemaining(), a, b);
+            } else if (a.isRun() && b.isRun()) { // ones and not zeros
+                skipBoth(out, true, Math.min(a.runRemaining(), b.runRemaining()), a, b);
+            } else {
+                out.addWord(a.nextWord() & ~b.nextWord());
+            }
+        }
+        out.addRest(a);
+        return out.build();
+    }
+
+    private static void skipBoth(Builder out, boolean bit, long n, Cursor a, Cursor b) {
+        out.addRun(bit, n);
+        a.skip(n);
+        b.skip(n);
+    }
+
+    // ==================== Equals: ====================
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EwahBitmap && toBitSet().equals(((EwahBitmap) o).toBitSet());
+    }
+
+    @Override
+    public int hashCode() {
+        return toBitSet().hashCode();
+    }
+
+    // ==================== Encoding: ====================
+
+    /**
+     * Appends words one at a time (or runs of clean words at once) and
+     * produces the compressed bitmap.
+     */
+    private static class Builder {
+        private long[] out = new long[8];
+        private int size;
+        private int marker = -1;
+        private boolean runBit;
+        private long runLength;
+        private int literals;
+
+        void addWord(long word) {
+            if (word == 0 || word == -1L) {
+                addRun(word != 0, 1);
+                return;
+            }
+            if (marker < 0 || literals == MAX_LITERALS) {
+                newMarker();
+            }
+            append(word);
+            literals++;
+            writeMarker();
+        }
+
+        void addRun(boolean bit, long n) {
+            while (n > 0) {
+                if (marker < 0 || literals > 0 || runLength == MAX_RUN
+                        || (runLength > 0 && runBit != bit)) {
+                    newMarker();
+                }
+                long k = Math.min(n, MAX_RUN - runLength);
+                runBit = bit;
+                runLength += k;
+                n -= k;
+                writeMarker();
+            }
+        }
+
+        void addRest(Cursor cursor) {
+            while (cursor.hasNext()) {
+                if (cursor.isRun()) {
+                    long n = cursor.runRemaining();
+                    addRun(cursor.runBit(), n);
+                    cursor.skip(n);
+                } else {
+                    addWord(cursor.nextWord());
+                }
+            }
+        }
+
+        EwahBitmap build() {
+            return new EwahBitmap(Arrays.copyOf(out, size));
+        }
+
+        private void newMarker() {
+            marker = size;
+            append(0);
+            runBit = false;
+            runLength = 0;
+            literals = 0;
+        }
+
+        private void writeMarker() {
+            out[marker] = (runBit ? 1L : 0L) | (runLength << 1) | ((long) literals << 33);
+        }
+
+        private void append(long word) {
+            if (size == out.length) {
+                out = Arrays.copyOf(out, size * 2);
+            }
+            out[size++] = word;
+        }
+    }
+
+    /**
+     * Reads a bitmap's words in order, reporting runs so callers can skip
+     * them whole.
+     */
+    private static class Cursor {
+        private final long[] words;
+        private int pos;
+        private boolean runBit;
+        private long runRemaining;
+        private int literalsRemaining;
+
+        Cursor(EwahBitmap bitmap) {
+            this.words = bitmap.words;
+        }
+
+        boolean hasNext() {
+            normalize();
+            return runRemaining > 0 || literalsRemaining > 0;
+        }
+
+        /**
+         * True if the next word is part of a run. Call hasNext() first.
+         */
+        boolean isRun() {
+            return runRemaining > 0;
+        }
+
+        boolean runBit() {
+            return runBit;
+        }
+
+        long runRemaining() {
+            return runRemaining;
+        }
+
+        /**
+         * Returns the next word and moves past it. Call hasNext() first.
+         */
+        long nextWord() {
+            if (runRemaining > 0) {
+                runRemaining--;
+                return runBit ? -1L : 0L;
+            }
+            literalsRemaining--;
+            return words[pos++];
+        }
+
+        /**
+         * Moves past the next n words, or to the end if there are fewer.
+         */
+        void skip(long n) {
+            while (n > 0 && hasNext()) {
+                if (runRemaining > 0) {
+                    long k = Math.min(n, runRemaining);
+                    runRemaining -= k;
+                    n -= k;
+                } else {
+                    int k = (int) Math.min(n, literalsRemaining);
+                    pos += k;
+                    literalsRemaining -= k;
+                    n -= k;
+                }
+            }
+        }
+
+        private void normalize() {
+            while (runRemaining == 0 && literalsRemaining == 0 && pos < words.length) {
+                long marker = words[pos++];
+                runBit = (marker & 1) != 0;
+                runRemaining = (marker >>> 1) & MAX_RUN;
+                literalsRemaining = (int) (marker >>> 33);
+            }
+        }
+    }
+
+}
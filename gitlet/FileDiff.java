@@ -0,0 +1,72 @@
+package gitlet;
+
+import java.util.function.Supplier;
+
+/**
+ * One file that differs between two versions of a tree, found by comparing
+ * snapshot hashes. The contents of each side are only read when asked for,
+ * so listing which files changed never touches a snapshot.
+ *
+ * @author Brandon Wong
+ */
+public class FileDiff {
+
+    // ==================== FileDiff Metadata: ====================
+    private final String name;
+    private final String oldHash;
+    private final String newHash;
+    private Supplier<String> oldContent;
+    private Supplier<String> newContent;
+
+    /**
+     * A null hash means the file does not exist on that side, and its
+     * content supplier is then never called.
+     */
+    FileDiff(String name, String oldHash, String newHash,
+             Supplier<String> oldContent, Supplier<String> newContent) {
+        this.name = name;
+        this.oldHash = oldHash;
+        this.newHash = newHash;
+        this.oldContent = oldContent;
+        this.newContent = newContent;
+    }
+
+    // ==================== Getters: ====================
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAdded() {
+        return oldHash == null;
+    }
+
+    public boolean isDeleted() {
+        return newHash == null;
+    }
+
+    /**
+     * Returns the old content of the file, "" if it was added.
+     */
+    public String getOldContent() {
+        if (isAdded()) {
+            return "";
+        }
+        String content = oldContent.get();
+        oldContent = () -> content;
+        return content;
+    }
+
+    /**
+     * Returns the new content of the file, "" if it was deleted.
+     */
+    public String getNewContent() {
+        if (isDeleted()) {
+            return "";
+        }
+        String content = newContent.get();
+        newContent = () -> content;
+        return content;
+    }
+
+}
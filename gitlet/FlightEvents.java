@@ -0,0 +1,207 @@
+package gitlet;
+
+import jdk.jfr.AnnotationElement;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventFactory;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.ValueDescriptor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Java Flight Recorder events for gitlet's commands and I/O, in the
+ * "Gitlet" category:
+ * <pre>
+ *   gitlet.Command       one top-level command: command line, failed
+ *   gitlet.ObjectRead    a commit, snapshot or the index read: objectId, objectType, bytes
+ *   gitlet.ObjectWrite   a commit or snapshot written: objectId, objectType, bytes
+ *   gitlet.SnapshotLoad  a tracked file's content loaded: fileName, snapshotId, chars
+ *   gitlet.WorkFile      a working file read, hashed or written: operation, fileName, bytes
+ * </pre>
+ * Each event's duration covers the operation. Instrumented code calls
+ * begin() before the operation and one of the end methods after it.
+ * <p>
+ * The event types are made with EventFactory rather than declared as Event
+ * subclasses, which the JVM would give a static handler field, so that no
+ * gitlet class holds global state. Every instance registers its own five
+ * types, so an application makes one, passes it to every repository it
+ * opens, and closes it (unregistering the types) when done; repositories
+ * opened without one record no events. The types are only made once the
+ * flight recorder has been started in this JVM; until then begin() returns
+ * null and costs one field read, and once they exist, an event whose type
+ * is not being recorded is dropped before any of its values are computed.
+ *
+ * @author Brandon Wong
+ */
+public class FlightEvents implements AutoCloseable {
+
+    // ==================== Event Types: ====================
+    static final int COMMAND = 0;
+    static final int OBJECT_READ = 1;
+    static final int OBJECT_WRITE = 2;
+    static final int SNAPSHOT_LOAD = 3;
+    static final int WORK_FILE = 4;
+
+    /** False for the stand-in of repositories opened without events. */
+    private final boolean active;
+    private volatile EventFactory[] factories;
+    private volatile boolean closed;
+
+    /**
+     * Makes a set of event types to share between repositories.
+     */
+    public FlightEvents() {
+        this(true);
+    }
+
+    FlightEvents(boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * Unregisters the event types; no more events are recorded through this
+     * instance afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (factories != null) {
+            for (EventFactory factory : factories) {
+                factory.unregister();
+            }
+        }
+    }
+
+    /**
+     * Returns a started event of the given type, or null if it is not
+     * being recorded.
+     */
+    Event begin(int type) {
+        EventFactory[] made = factories;
+        if (made == null) {
+            if (!active || closed || !FlightRecorder.isInitialized()) {
+                return null;
+            }
+            made = createFactories();
+            if (made == null) {
+                return null;
+            }
+        } else if (closed) {
+            return null;
+        }
+        Event event = made[type].newEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    // ==================== Ending Events: ====================
+
+    void endCommand(Event event, String commandLine, boolean failed) {
+        commit(event, commandLine, failed);
+    }
+
+    /**
+     * Ends an ObjectRead or ObjectWrite event for the object stored in file.
+     */
+    void endObject(Event event, String objectType, File file) {
+        if (event != null) {
+            commit(event, file.getName(), objectType, file.length());
+        }
+    }
+
+    void endSnapshotLoad(Event event, String fileName, String snapshotId, String content) {
+        if (event != null) {
+            commit(event, fileName, snapshotId, (long) content.length());
+        }
+    }
+
+    void endWorkFile(Event event, String operation, File file) {
+        if (event != null) {
+            commit(event, operation, file.getName(), file.length());
+        }
+    }
+
+    private static void commit(Event event, Object... values) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            for (int i = 0; i < values.length; i++) {
+                event.set(i, values[i]);
+            }
+            event.commit();
+        }
+    }
+
+    // ==================== Event Definitions: ====================
+
+    /**
+     * Returns the event factories, made on first use, or null once closed.
+     */
+    private synchronized EventFactory[] createFactories() {
+        if (closed) {
+            return null;
+        } else if (factories != null) {
+            return factories;
+        }
+        EventFactory[] made = new EventFactory[5];
+        made[COMMAND] = factory("gitlet.Command", "Gitlet Command", "A top-level gitlet command", true,
+                field(String.class, "commandLine", "Command Line"),
+                field(boolean.class, "failed", "Failed"));
+        made[OBJECT_READ] = factory("gitlet.ObjectRead", "Object Read",
+                "A commit, snapshot or the index read from .gitlet", false,
+                field(String.class, "objectId", "Object Id"),
+                field(String.class, "objectType", "Object Type"),
+                bytesField("bytes", "Bytes"));
+        made[OBJECT_WRITE] = factory("gitlet.ObjectWrite", "Object Write",
+                "A commit or snapshot written to .gitlet", false,
+                field(String.class, "objectId", "Object Id"),
+                field(String.class, "objectType", "Object Type"),
+                bytesField("bytes", "Bytes"));
+        made[SNAPSHOT_LOAD] = factory("gitlet.SnapshotLoad", "Snapshot Load",
+                "The content of a tracked file loaded from its snapshot", false,
+                field(String.class, "fileName", "File Name"),
+                field(String.class, "snapshotId", "Snapshot Id"),
+                field(long.class, "chars", "Characters"));
+        made[WORK_FILE] = factory("gitlet.WorkFile", "Working File I/O",
+                "A working-tree file read, hashed or written", false,
+                field(String.class, "operation", "Operation"),
+                field(String.class, "fileName", "File Name"),
+                bytesField("bytes", "Bytes"));
+        factories = made;
+        return made;
+    }
+
+    private static EventFactory factory(String name, String label, String description,
+                                        boolean stackTrace, ValueDescriptor... fields) {
+        List<AnnotationElement> annotations = new ArrayList<>(List.of(
+                new AnnotationElement(Name.class, name),
+                new AnnotationElement(Label.class, label),
+                new AnnotationElement(Description.class, description),
+                new AnnotationElement(Category.class, new String[]{"Gitlet"}),
+                new AnnotationElement(StackTrace.class, stackTrace)));
+        return EventFactory.create(annotations, List.of(fields));
+    }
+
+    private static ValueDescriptor field(Class<?> type, String name, String label) {
+        return new ValueDescriptor(type, name, List.of(new AnnotationElement(Label.class, label)));
+    }
+
+    private static ValueDescriptor bytesField(String name, String label) {
+        return new ValueDescriptor(long.class, name, List.of(new AnnotationElement(Label.class, label),
+                new AnnotationElement(DataAmount.class, DataAmount.BYTES)));
+    }
+
+}
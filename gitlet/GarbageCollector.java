@@ -0,0 +1,93 @@
+package gitlet;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mark-and-sweep collection of the objects in an ObjectStore. Every stored
+ * object is numbered by its position in the sorted listing of its folder, so
+ * the mark phase only needs one bit per object; the sweep then deletes every
+ * unmarked object older than the grace period. What to mark comes from a
+ * ReachabilityIndex, which answers from its bitmaps without reading most
+ * commits.
+ *
+ * @author Brandon Wong
+ */
+class GarbageCollector {
+
+    // ==================== GarbageCollector Metadata: ====================
+    private final ObjectStore store;
+    private final List<String> commitHashes;
+    private final List<String> snapHashes;
+    private final BitSet reachableCommits;
+    private final BitSet reachableSnaps;
+
+    /**
+     * Numbers the objects currently in store. Objects written after this are
+     * never swept.
+     */
+    GarbageCollector(ObjectStore store) {
+        this.store = store;
+        this.commitHashes = store.commitHashes();
+        this.snapHashes = store.snapHashes();
+        this.reachableCommits = new BitSet(commitHashes.size());
+        this.reachableSnaps = new BitSet(snapHashes.size());
+    }
+
+    // ==================== Mark: ====================
+
+    /**
+     * Marks the given commits as reachable. Their snapshots and parents are
+     * not marked.
+     */
+    void markCommits(Collection<String> commits) {
+        mark(commits, commitHashes, reachableCommits);
+    }
+
+    void markSnaps(Collection<String> snaps) {
+        mark(snaps, snapHashes, reachableSnaps);
+    }
+
+    private static void mark(Collection<String> ids, List<String> numbering, BitSet marks) {
+        for (String hash : ids) {
+            int i = Collections.binarySearch(numbering, hash);
+            if (i >= 0) {
+                marks.set(i);
+            }
+        }
+    }
+
+    // ==================== Sweep: ====================
+
+    /**
+     * Deletes every unmarked object last written before cutoffMillis and
+     * returns what was kept and removed. markMillis is reported as is.
+     */
+    GcResult sweep(long cutoffMillis, long markMillis) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        int commitsRemoved = 0, snapsRemoved = 0;
+        for (int i = reachableCommits.nextClearBit(0); i < commitHashes.size();
+             i = reachableCommits.nextClearBit(i + 1)) {
+            long freed = store.pruneCommit(commitHashes.get(i), cutoffMillis);
+            if (freed >= 0) {
+                bytes += freed;
+                commitsRemoved++;
+            }
+        }
+        for (int i = reachableSnaps.nextClearBit(0); i < snapHashes.size();
+             i = reachableSnaps.nextClearBit(i + 1)) {
+            long freed = store.pruneSnap(snapHashes.get(i), cutoffMillis);
+            if (freed >= 0) {
+                bytes += freed;
+                snapsRemoved++;
+            }
+        }
+        long sweepMillis = (System.nanoTime() - start) / 1000000;
+        return new GcResult(commitHashes.size() - commitsRemoved, commitsRemoved,
+                snapHashes.size() - snapsRemoved, snapsRemoved, bytes, markMillis, sweepMillis);
+    }
+
+}
@@ -0,0 +1,69 @@
+package gitlet;
+
+/**
+ * What a garbage collection kept and removed, and how long it took.
+ *
+ * @author Brandon Wong
+ */
+public class GcResult {
+
+    // ==================== GcResult Metadata: ====================
+    private final int commitsKept;
+    private final int commitsRemoved;
+    private final int snapsKept;
+    private final int snapsRemoved;
+    private final long bytesReclaimed;
+    private final long markMillis;
+    private final long sweepMillis;
+
+    GcResult(int commitsKept, int commitsRemoved, int snapsKept, int snapsRemoved,
+             long bytesReclaimed, long markMillis, long sweepMillis) {
+        this.commitsKept = commitsKept;
+        this.commitsRemoved = commitsRemoved;
+        this.snapsKept = snapsKept;
+        this.snapsRemoved = snapsRemoved;
+        this.bytesReclaimed = bytesReclaimed;
+        this.markMillis = markMillis;
+        this.sweepMillis = sweepMillis;
+    }
+
+    // ==================== Getters: ====================
+
+    /**
+     * Commits still stored afterwards, reachable or within the grace period.
+     */
+    public int getCommitsKept() {
+        return commitsKept;
+    }
+
+    public int getCommitsRemoved() {
+        return commitsRemoved;
+    }
+
+    /**
+     * Snapshots still stored afterwards, reachable or within the grace period.
+     */
+    public int getSnapsKept() {
+        return snapsKept;
+    }
+
+    public int getSnapsRemoved() {
+        return snapsRemoved;
+    }
+
+    /**
+     * Total size of the deleted object files.
+     */
+    public long getBytesReclaimed() {
+        return bytesReclaimed;
+    }
+
+    public long getMarkMillis() {
+        return markMillis;
+    }
+
+    public long getSweepMillis() {
+        return sweepMillis;
+    }
+
+}
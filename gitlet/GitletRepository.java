@@ -0,0 +1,1578 @@
+package gitlet;
+
+import jdk.jfr.Event;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static gitlet.RepoUtils.*;
+import static gitlet.Utils.*;
+
+/**
+ * Embeddable handle on a single gitlet repository. Every instance is bound
+ * to its own working tree, so any number of repositories can be driven from
+ * one JVM. Operations report failures by throwing a GitletException whose
+ * message is the user-facing error text; nothing here prints or exits.
+ * <p>
+ * Refs and the index are cached in memory. By default every operation writes
+ * its changes back before returning; with autoFlush off they are only written
+ * on flush(), which lets a long run of commands share one set of reads.
+ * Each flush is a transaction: objects written since the last flush are forced
+ * to disk together (as core.durability asks), and only then are the refs and
+ * then the index swapped in, each by an atomic rename. The refs are what
+ * commits the transaction: an index left behind by a crash (or a failed write)
+ * right after them still lists what was just committed, and loading it drops
+ * every entry the head already has.
+ * <p>
+ * Several processes may work on one repository at once. Operations that
+ * change the index or head hold .gitlet/.index.lock until they flush, and
+ * branches are moved by compare-and-swap (see Refs), so writers to the same
+ * branch cannot lose each other's commits. Read-only operations take no locks:
+ * they see every ref as of one committed snapshot.
+ *
+ * @author Brandon Wong
+ */
+public class GitletRepository {
+
+    // ==================== File Structure: ====================
+
+    // working tree & .gitlet
+    private final File workTree;
+    private final File gitletDir;
+    // .gitlet files
+    private final File indexFile;
+    private final File bitmapsFile;
+    private final LockFile indexLock;
+
+    // ==================== In-memory State: ====================
+    private final Config config;
+    private final ObjectStore store;
+    private final Refs refs;
+    private final ResolutionCache rerere;
+    private final Metrics metrics;
+    private final Tracer tracer;
+    private Hasher hasher;
+    private StagingArea index;
+    private ReachabilityIndex reachability;
+    private boolean indexDirty;
+    private boolean autoFlush = true;
+
+    // ==================== Constructors: ====================
+
+    private GitletRepository(File workTree, Tracer tracer) {
+        this.workTree = workTree.getAbsoluteFile();
+        this.gitletDir = join(this.workTree, ".gitlet");
+        this.indexFile = join(gitletDir, "index");
+        this.bitmapsFile = join(gitletDir, "bitmaps");
+        this.indexLock = new LockFile(indexFile);
+        this.config = new Config(join(gitletDir, "config"));
+        this.store = new ObjectStore(gitletDir, tracer);
+        this.refs = new Refs(gitletDir);
+        this.rerere = new ResolutionCache(gitletDir);
+        this.metrics = new Metrics(gitletDir);
+        this.tracer = tracer;
+    }
+
+    /**
+     * Returns true if WORKTREE contains an initialized gitlet repository.
+     */
+    public static boolean exists(File workTree) {
+        return join(workTree, ".gitlet").isDirectory();
+    }
+
+    /**
+     * Opens the existing repository rooted at WORKTREE.
+     */
+    public static GitletRepository open(File workTree) {
+        return open(workTree, new Tracer(false));
+    }
+
+    /**
+     * Like open(workTree), recording JFR events through flightEvents, which
+     * is meant to be shared by every repository an application opens.
+     */
+    public static GitletRepository open(File workTree, FlightEvents flightEvents) {
+        return open(workTree, new Tracer(false, flightEvents));
+    }
+
+    /**
+     * Like open(workTree), recording what the repository does in tracer.
+     */
+    static GitletRepository open(File workTree, Tracer tracer) {
+        validate(exists(workTree), "Not in an initialized Gitlet directory.");
+        return new GitletRepository(workTree, tracer);
+    }
+
+    /**
+     * Initializes gitlet repository structure in WORKTREE and creates main branch
+     * with initial commit with message "initial commit" and timestamp
+     * 00:00:00 UTC, Thursday, 1 January 1970.
+     */
+    public static GitletRepository init(File workTree) {
+        return init(workTree, Hasher.SHA1);
+    }
+
+    /**
+     * Like init(workTree), with object ids computed by the given hash
+     * function (sha1 or sha256) for the life of the repository.
+     */
+    public static GitletRepository init(File workTree, String objectFormat) {
+        return init(workTree, objectFormat, new Tracer(false));
+    }
+
+    /**
+     * Like init(workTree, objectFormat), recording JFR events through
+     * flightEvents, as for open(workTree, flightEvents).
+     */
+    public static GitletRepository init(File workTree, String objectFormat, FlightEvents flightEvents) {
+        return init(workTree, objectFormat, new Tracer(false, flightEvents));
+    }
+
+    /**
+     * Like init(workTree, objectFormat), recording what the repository does
+     * in tracer.
+     */
+    static GitletRepository init(File workTree, String objectFormat, Tracer tracer) {
+        validate(!exists(workTree),
+                "A Gitlet version-control system already exists in the current directory.");
+        Hasher.checkObjectFormat(objectFormat);
+        GitletRepository repo = new GitletRepository(workTree, tracer);
+        // persistence:
+        repo.gitletDir.mkdir();
+        repo.store.create();
+        if (!objectFormat.equals(Hasher.SHA1)) {
+            repo.config.initObjectFormat(objectFormat);
+        }
+        // init commit + main branch
+        String newCommitHash = repo.createNewCommit("initial commit", new HashMap<>(), null);
+        repo.refs.setFront("main", newCommitHash);
+        // save ^ to head
+        repo.refs.setHeadCommitHash(newCommitHash);
+        repo.refs.setHeadBranchName("main");
+        repo.flush();
+        return repo;
+    }
+
+    public File getWorkTree() {
+        return workTree;
+    }
+
+    /**
+     * With autoFlush on (the default) every operation persists refs and the
+     * index before returning. Turning it off keeps them in memory until the
+     * next flush(); objects and working-tree files are always written directly.
+     */
+    public void setAutoFlush(boolean autoFlush) {
+        this.autoFlush = autoFlush;
+    }
+
+    /**
+     * Commits the current transaction: forces new objects to disk (unless
+     * core.durability is none), then atomically replaces every ref changed
+     * since the last flush and the index, forcing those too if it is full,
+     * and releases the index lock. If a branch was moved by another process
+     * in the meantime, all in-memory changes are dropped and a
+     * GitletException is thrown.
+     */
+    public void flush() {
+        tracer.inSpan("flush", this::flushChanges);
+    }
+
+    private void flushChanges() {
+        String durability = config.getDurability();
+        if (durability.equals(Config.DURABILITY_NONE)) {
+            store.discardUnsynced();
+        } else {
+            store.sync();
+        }
+        boolean syncRefs = durability.equals(Config.DURABILITY_FULL);
+        boolean refsMoved;
+        try {
+            refsMoved = refs.flush(syncRefs, config.getLockTimeoutMillis());
+        } catch (GitletException excp) {
+            discardChanges();
+            indexLock.release();
+            throw excp;
+        }
+        try {
+            if (indexDirty) {
+                if (!indexLock.isHeld()) {
+                    indexLock.acquire(config.getLockTimeoutMillis());
+                }
+                indexLock.commit(syncRefs, serialize(index));
+                indexDirty = false;
+            }
+        } catch (GitletException | IllegalArgumentException excp) {
+            if (!refsMoved) {
+                discardChanges();
+                throw excp;
+            }
+            // committed all the same: the old index is repaired when next loaded
+            index = null;
+            indexDirty = false;
+        } finally {
+            indexLock.release();
+        }
+    }
+
+    /**
+     * Returns the value of the given config key, or null if it is not set.
+     */
+    public String getConfig(String key) {
+        return config.get(key);
+    }
+
+    /**
+     * Sets the given config key, e.g. core.durability to none, objects or full.
+     */
+    public void setConfig(String key, String value) {
+        config.set(key, value);
+    }
+
+    // ==================== Operations: ====================
+
+    /**
+     * Adds given files into the staging area, each only if it differs from the
+     * current head's version of the file. If a file is already staged, the newly
+     * added file should override the old added file. Each path may name a file,
+     * the working tree itself (e.g. ".") for all of its files, or be a glob
+     * pattern over file names. Files are hashed and staged in parallel.
+     */
+    public void add(String... paths) {
+        update(true, () -> stagePaths(paths));
+    }
+
+    /**
+     * Creates a new commit from the staging area on the head branch and moves
+     * head to it. Returns the id of the new commit.
+     */
+    public String commit(String message) {
+        return updateAndGet(true, () -> commit(message, null));
+    }
+
+    /**
+     * Unstages File if currently staged
+     * If file is tracked in curr commit, stage for removal and remove file from cwd
+     */
+    public void remove(String fileName) {
+        update(true, () -> {
+            boolean existsInStaging = getIndex().getStagedHash(fileName) != null;
+            boolean existsInHeadCommit = getHeadCommit().contains(fileName);
+            validate(existsInStaging || existsInHeadCommit, "No reason to remove the file.");
+
+            unstageAdd(fileName);
+            if (existsInHeadCommit) {
+                stageForRm(fileName);
+                restrictedDelete(join(workTree, fileName));
+            }
+        });
+    }
+
+    private void stagePaths(String[] paths) {
+        List<String> fileNames = expandPaths(paths);
+        Commit headCommit = getHeadCommit();
+        StagingArea stage = getIndex();
+
+        // hashing and content writes are independent per file, the index is not:
+        List<String[]> hashed = tracer.inSpan("hashForStage", () -> fileNames.parallelStream()
+                .map(fileName -> hashForStage(fileName, headCommit, stage))
+                .toList());
+        for (String[] elem : hashed) {
+            String fileName = elem[0], hash = elem[1];
+            if (stage.unstageRemove(fileName)) {
+                indexDirty = true;
+            }
+            if (hash == null) {
+                unstageAdd(fileName);
+            } else if (!hash.equals(stage.getStagedHash(fileName))) {
+                stage.stageAdd(fileName, hash);
+                indexDirty = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the commits reachable from head by following first parents,
+     * newest first. Commits are read lazily as the iteration advances.
+     */
+    public Iterable<Commit> log() {
+        beginRead();
+        String start = refs.getHeadCommitHash();
+        return () -> new Iterator<>() {
+            private String next = start;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Commit next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Commit c = getCommitFromHash(next);
+                next = c.getParentHash();
+                return c;
+            }
+        };
+    }
+
+    /**
+     * Returns every commit ever made, in no particular order.
+     */
+    public Iterable<Commit> globalLog() {
+        beginRead();
+        List<String> ids = store.commitHashes();
+        return () -> new Iterator<>() {
+            private final Iterator<String> it = ids.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Commit next() {
+                return getCommitFromHash(it.next());
+            }
+        };
+    }
+
+    /**
+     * Returns the ids of all commits that have the given message.
+     */
+    public List<String> find(String message) {
+        List<String> found = new ArrayList<>();
+        for (Commit elemCommit : globalLog()) {
+            if (message.equals(elemCommit.getMessage())) {
+                found.add(elemCommit.getCommitHash());
+            }
+        }
+        validate(!found.isEmpty(), "Found no commit with that message.");
+        return found;
+    }
+
+    /**
+     * Returns what branches exist, which is current, and what files are
+     * staged, modified or untracked.
+     */
+    public Status status() {
+        beginRead();
+        Commit headCommit = getHeadCommit();
+        StagingArea stage = getIndex();
+        return new Status(refs.getHeadBranchName(),
+                refs.branchNames(),
+                new ArrayList<>(stage.getAdds().keySet()),
+                new ArrayList<>(stage.getRemoves()),
+                getModsNotStaged(headCommit),
+                getUntrackedFiles(headCommit));
+    }
+
+    // ==================== Diffs: ====================
+
+    /**
+     * Returns how the working tree differs from head, for every file tracked
+     * by head or staged for addition, in name order. Working files are hashed
+     * in parallel; only files whose hash differs from head's are returned.
+     */
+    public List<FileDiff> diff() {
+        beginRead();
+        Map<String, String> headFiles = getHeadCommit().getSnapShots();
+        TreeSet<String> names = new TreeSet<>(headFiles.keySet());
+        names.addAll(getIndex().getAdds().keySet());
+        return names.parallelStream()
+                .map(name -> diffWorkFile(name, headFiles.get(name)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns how the staging area differs from head, in name order.
+     */
+    public List<FileDiff> diffCached() {
+        beginRead();
+        Map<String, String> headFiles = getHeadCommit().getSnapShots();
+        Map<String, String> stagedFiles = new HashMap<>(headFiles);
+        stagedFiles.putAll(getIndex().getAdds());
+        stagedFiles.keySet().removeAll(getIndex().getRemoves());
+        return diffTrees(headFiles, stagedFiles);
+    }
+
+    /**
+     * Returns how the commit with id toId differs from the one with id
+     * fromId (both possibly abbreviated), in name order.
+     */
+    public List<FileDiff> diff(String fromId, String toId) {
+        beginRead();
+        Commit from = getCommitFromHash(resolveCommitId(fromId)),
+                to = getCommitFromHash(resolveCommitId(toId));
+        return diffTrees(from.getSnapShots(), to.getSnapShots());
+    }
+
+    /**
+     * Compares two file name -> snapshot hash maps. Files with the same hash
+     * on both sides are skipped without reading anything.
+     */
+    private List<FileDiff> diffTrees(Map<String, String> from, Map<String, String> to) {
+        TreeSet<String> names = new TreeSet<>(from.keySet());
+        names.addAll(to.keySet());
+        List<FileDiff> diffs = new ArrayList<>();
+        for (String name : names) {
+            String oldHash = from.get(name), newHash = to.get(name);
+            if (!Objects.equals(oldHash, newHash)) {
+                diffs.add(new FileDiff(name, oldHash, newHash,
+                        () -> store.readSnapContent(oldHash),
+                        () -> store.readSnapContent(newHash)));
+            }
+        }
+        return diffs;
+    }
+
+    /**
+     * Compares the working file with the given name to the snapshot with
+     * oldHash (null if head does not track it). Returns null if they match.
+     */
+    private FileDiff diffWorkFile(String name, String oldHash) {
+        File file = join(workTree, name);
+        if (!isWorkFile(file)) {
+            return oldHash == null ? null
+                    : new FileDiff(name, oldHash, null, () -> store.readSnapContent(oldHash), null);
+        }
+        String newHash = hashWorkFile(name, file);
+        if (newHash.equals(oldHash)) {
+            return null; // unchanged, and never decoded
+        }
+        return new FileDiff(name, oldHash, newHash,
+                () -> store.readSnapContent(oldHash), () -> readWorkFile(file));
+    }
+
+    /**
+     * Takes the version of file from head commit and puts it in the working tree.
+     */
+    public void checkoutFile(String fileName) {
+        beginRead();
+        checkoutFileAt(fileName, getHeadCommit());
+    }
+
+    /**
+     * Takes the version of file from the commit with the given (possibly
+     * abbreviated) id and puts it in the working tree.
+     */
+    public void checkoutFile(String commitId, String fileName) {
+        beginRead();
+        checkoutFileAt(fileName, getCommitFromHash(resolveCommitId(commitId)));
+    }
+
+    /**
+     * Takes all files in front commit of given Branch, puts in the working tree
+     * (overwriting), staging is cleared, files tracked in curr branch
+     * but not given branch are deleted. given branch will be considered head
+     */
+    public void checkoutBranch(String branchName) {
+        update(true, () -> {
+            validate(refs.exists(branchName), "No such branch exists.");
+            validate(!refs.getHeadBranchName().equals(branchName),
+                    "No need to checkout the current branch.");
+
+            String reqBranchFront = refs.getFront(branchName);
+
+            checkoutCommitAt(reqBranchFront);
+            refs.setHeadBranchName(branchName); // move head to curr branch
+        });
+    }
+
+    /**
+     * Creates new branch with given name, points it at curr head,
+     */
+    public void branch(String branchName) {
+        update(false, () -> {
+            validate(!refs.exists(branchName), "A branch with that name already exists.");
+
+            refs.setFront(branchName, refs.getHeadCommitHash());
+        });
+    }
+
+    /**
+     * Deletes branch with given name
+     * (only deletes pointer associated with branch)
+     */
+    public void removeBranch(String branchName) {
+        update(false, () -> {
+            validate(refs.exists(branchName), "A branch with that name does not exist.");
+            validate(!branchName.equals(refs.getHeadBranchName()),
+                    "Cannot remove the current branch.");
+
+            refs.remove(branchName);
+        });
+    }
+
+    /**
+     * Moves every branch into .gitlet/packed-refs, which is searched rather
+     * than read whole, leaving .gitlet/refs small. Unflushed changes are
+     * written by the next flush as usual.
+     */
+    public void packRefs() {
+        refs.pack(config.getDurability().equals(Config.DURABILITY_FULL),
+                config.getLockTimeoutMillis());
+        buildBitmaps(getReachability());
+    }
+
+    /**
+     * Deletes every commit and snapshot that is not reachable from a branch,
+     * head or the index and was written more than gc.gracePeriod seconds ago.
+     */
+    public GcResult gc() {
+        return gc(config.getGcGracePeriodSeconds());
+    }
+
+    /**
+     * Like gc(), with the given grace period in seconds. A grace period of 0
+     * may delete objects written by an operation still running in another
+     * process.
+     */
+    public GcResult gc(long graceSeconds) {
+        beginRead();
+        long cutoffMillis = System.currentTimeMillis() - graceSeconds * 1000;
+        long start = System.nanoTime();
+        GarbageCollector collector = new GarbageCollector(store);
+        ReachableSet reachable = getReachability().reach(store, getRoots());
+        collector.markCommits(reachable.commitHashes());
+        collector.markSnaps(reachable.snapHashes());
+        collector.markSnaps(getIndex().getAdds().values());
+        GcResult result = collector.sweep(cutoffMillis, (System.nanoTime() - start) / 1000000);
+        // renumber from scratch so deleted objects drop out of the bitmaps:
+        buildBitmaps(ReachabilityIndex.empty());
+        return result;
+    }
+
+    // ==================== Reachability: ====================
+
+    /**
+     * Returns true if the given commit is the front of the named branch or
+     * one of its ancestors.
+     */
+    public boolean branchContains(String branchName, String commitId) {
+        beginRead();
+        validate(refs.exists(branchName), "A branch with that name does not exist.");
+        return reach(refs.getFront(branchName)).containsCommit(resolveCommitId(commitId));
+    }
+
+    /**
+     * Returns the names of the branches that contain the given commit.
+     */
+    public List<String> branchesContaining(String commitId) {
+        beginRead();
+        String commitHash = resolveCommitId(commitId);
+        List<String> names = new ArrayList<>();
+        for (String branchName : refs.branchNames()) {
+            if (reach(refs.getFront(branchName)).containsCommit(commitHash)) {
+                names.add(branchName);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns how many commits and snapshots the named branch references.
+     */
+    public long countObjects(String branchName) {
+        beginRead();
+        validate(refs.exists(branchName), "A branch with that name does not exist.");
+        return reach(refs.getFront(branchName)).count();
+    }
+
+    /**
+     * Returns the hashes of the commits and snapshots reachable from the
+     * named branch but not from the given commit.
+     */
+    public List<String> newSince(String branchName, String commitId) {
+        beginRead();
+        validate(refs.exists(branchName), "A branch with that name does not exist.");
+        ReachableSet added = reach(refs.getFront(branchName))
+                .andNot(reach(resolveCommitId(commitId)));
+        List<String> hashes = added.commitHashes();
+        hashes.addAll(added.snapHashes());
+        return hashes;
+    }
+
+    private ReachableSet reach(String commitHash) {
+        return getReachability().reach(store, List.of(commitHash));
+    }
+
+    private ReachabilityIndex getReachability() {
+        if (reachability == null) {
+            reachability = ReachabilityIndex.load(bitmapsFile);
+        }
+        return reachability;
+    }
+
+    /**
+     * Extends base with every object reachable now, with bitmaps for every
+     * branch front, and saves the result as the repository's index.
+     */
+    private void buildBitmaps(ReachabilityIndex base) {
+        reachability = base.extend(store, getRoots());
+        reachability.saveTo(bitmapsFile);
+    }
+
+    /**
+     * Returns the front of every branch, and head.
+     */
+    private List<String> getRoots() {
+        List<String> roots = new ArrayList<>();
+        for (String branchName : refs.branchNames()) {
+            roots.add(refs.getFront(branchName));
+        }
+        roots.add(refs.getHeadCommitHash());
+        return roots;
+    }
+
+    /**
+     * Checks out all tracked files in given commit
+     * Removes tracked files not present in given commit
+     * moves current branch head to given commit
+     * staging area cleared
+     */
+    public void reset(String commitId) {
+        update(true, () -> {
+            String requestedCommitHash = resolveCommitId(commitId);
+
+            checkoutCommitAt(requestedCommitHash);
+            // Move branch front pointer to new commit
+            refs.setFront(refs.getHeadBranchName(), requestedCommitHash);
+        });
+    }
+
+    /**
+     * Merges files from given branch into curr branch
+     */
+    public MergeResult merge(String otherBranchName) {
+        return updateAndGet(true, () -> mergeBranch(otherBranchName));
+    }
+
+    private MergeResult mergeBranch(String otherBranchName) {
+        validate(getUntrackedFiles(getHeadCommit()).size() == 0,
+                "There is an untracked file in the way; delete it, or add and commit it first.");
+        validate(getIndex().isEmpty(), "You have uncommitted changes.");
+
+        // validate requested branch can be merged:
+        String currBranchName = refs.getHeadBranchName();
+        validate(refs.exists(otherBranchName), "A branch with that name does not exist.");
+        validate(!otherBranchName.equals(currBranchName),
+                "Cannot merge a branch with itself.");
+
+        // head and given commits, and whether one contains the other:
+        Commit head = getHeadCommit(),
+                other = getCommitFromHash(refs.getFront(otherBranchName));
+        validate(!reach(head.getCommitHash()).containsCommit(other.getCommitHash()),
+                "Given branch is an ancestor of the current branch.");
+        if (reach(other.getCommitHash()).containsCommit(head.getCommitHash())) {
+            checkoutCommitAt(other.getCommitHash());
+            refs.setFront(currBranchName, other.getCommitHash());
+            return MergeResult.fastForward(other.getCommitHash());
+        }
+        Commit split = getSplitCommit(other.getCommitHash(), head.getCommitHash()); // takes N time
+
+        // decide what happens to every file, then do it:
+        MergePlan plan = tracer.inSpan("MergePlan.plan", () -> MergePlan.plan(split.getSnapShots(),
+                head.getSnapShots(), other.getSnapShots(), store::readSnapContent, tracer));
+        validate(!plan.isEmpty(), "No changes added to the commit.");
+        boolean conflictExists = tracer.inSpan("applyMerge", () -> applyMerge(plan));
+        List<String> reused = new ArrayList<>();
+        for (MergePlan.FileMerge fileMerge : plan.getFileMerges()) {
+            if (fileMerge.isReused()) {
+                reused.add(fileMerge.getName());
+            }
+        }
+        reused.sort(null);
+
+        // create new commit with content pointing to both branches
+        // (should remain on same head branch)
+        String mergeMessage = "Merged " + otherBranchName + " into " + currBranchName + ".";
+        String newCommitHash = createNewCommit(mergeMessage, plan.getResult(),
+                head.getCommitHash(), other.getCommitHash());
+        refs.setFront(currBranchName, newCommitHash);
+        refs.setHeadCommitHash(newCommitHash);
+        return MergeResult.merged(newCommitHash, conflictExists, reused);
+    }
+
+    /**
+     * Carries out plan in the working tree, in parallel across files. Taken
+     * files are written from snapshots already in the store; merged files are
+     * saved as new snapshots as they are written, so nothing is read back
+     * from the working tree. Returns true if any merge had conflicts.
+     */
+    private boolean applyMerge(MergePlan plan) {
+        for (String fileName : plan.getDeletes()) {
+            restrictedDelete(join(workTree, fileName));
+        }
+        plan.getTakes().entrySet().parallelStream().forEach(take ->
+                writeWorkFile(take.getKey(), store.readSnapContent(take.getValue())));
+        plan.getFileMerges().parallelStream().forEach(fileMerge ->
+                writeWorkFile(fileMerge.getName(), resolveFileMerge(fileMerge, true)));
+        rememberConflicts(plan);
+        return plan.getFileMerges().stream().anyMatch(MergePlan.FileMerge::isConflicted);
+    }
+
+    /**
+     * Merges a file both sides changed line by line, conflicts where the
+     * changes collide, and resolves fileMerge with the result's snapshot
+     * hash, saving the snapshot if save. Only a saved result counts as a use
+     * of a recorded resolution it reuses. Returns the merged content.
+     */
+    private String resolveFileMerge(MergePlan.FileMerge fileMerge, boolean save) {
+        LineMerge merged = LineMerge.merge(readSnapOrEmpty(fileMerge.getBaseHash()),
+                readSnapOrEmpty(fileMerge.getOursHash()),
+                readSnapOrEmpty(fileMerge.getTheirsHash()));
+        String content = merged.getContent();
+        boolean conflicted = merged.hasConflicts();
+        if (conflicted && config.isRerereEnabled()) {
+            String resolved = rerere.reuse(content, save);
+            if (resolved != null) {
+                content = resolved;
+                conflicted = false;
+                fileMerge.markReused();
+            }
+        }
+        SnapShot snap = newSnapShot(fileMerge.getName(), content);
+        if (save) {
+            store.writeSnap(snap);
+        }
+        fileMerge.resolve(snap.getHash(), conflicted);
+        return content;
+    }
+
+    /**
+     * If resolutions are being recorded, remembers the conflicts plan left in
+     * the working tree, so their resolutions are recorded when committed.
+     */
+    private void rememberConflicts(MergePlan plan) {
+        if (!config.isRerereEnabled()) {
+            return;
+        }
+        for (MergePlan.FileMerge fileMerge : plan.getFileMerges()) {
+            if (fileMerge.isConflicted()) {
+                rerere.recordConflict(fileMerge.getName(), store.readSnapContent(fileMerge.getResultHash()));
+            }
+        }
+    }
+
+    /**
+     * If resolutions are being recorded, records the staged versions of files
+     * with pending conflicts as their resolutions.
+     */
+    private void recordResolutions(StagingArea stage) {
+        if (!config.isRerereEnabled()) {
+            return;
+        }
+        for (String fileName : rerere.pendingFiles()) {
+            String hash = stage.getAdds().get(fileName);
+            if (hash != null) {
+                rerere.recordCommitted(fileName, store.readSnapContent(hash));
+            } else if (stage.getRemoves().contains(fileName)) {
+                rerere.recordCommitted(fileName, null);
+            }
+        }
+    }
+
+    // ==================== Recorded Resolutions: ====================
+
+    /**
+     * Returns one "<id> resolved" or "<id> unresolved" line per recorded
+     * conflict.
+     */
+    public List<String> rerereStatus() {
+        return rerere.describe();
+    }
+
+    /**
+     * Deletes the recorded conflict whose id starts with the given prefix,
+     * which must be at least ResolutionCache.MIN_ID_PREFIX characters and
+     * match only one.
+     */
+    public void rerereForget(String idPrefix) {
+        validate(idPrefix.length() >= ResolutionCache.MIN_ID_PREFIX,
+                "An id prefix must be at least " + ResolutionCache.MIN_ID_PREFIX + " characters.");
+        List<String> ids = rerere.idsStartingWith(idPrefix);
+        validate(!ids.isEmpty(), "No recorded resolution with that id.");
+        validate(ids.size() == 1, "More than one recorded resolution has that id prefix.");
+        rerere.forget(ids.get(0));
+    }
+
+    /**
+     * Deletes stale recorded conflicts and returns how many there were.
+     */
+    public int rerereGc() {
+        return rerere.prune(System.currentTimeMillis());
+    }
+
+    // ==================== Metrics: ====================
+
+    /**
+     * Returns the latencies recorded for each command (with metrics.enabled
+     * set) and the current size of the repository.
+     */
+    public MetricsReport metrics() {
+        beginRead();
+        return new MetricsReport(metrics.getLatencies(), store.commitHashes().size(),
+                store.snapHashes().size(), store.sizeInBytes(), refs.branchNames().size());
+    }
+
+    /**
+     * Records that command took nanos nanoseconds, if metrics.enabled is set.
+     */
+    void recordLatency(String command, long nanos) {
+        if (config.isMetricsEnabled()) {
+            metrics.record(command, nanos / 1000);
+        }
+    }
+
+    private String readSnapOrEmpty(String snapHash) {
+        return snapHash == null ? "" : store.readSnapContent(snapHash);
+    }
+
+    // ==================== In-Memory Merges: ====================
+
+    /**
+     * Merges theirs into ours (each a branch name or commit id) against the
+     * object store alone: the working tree and index are neither read nor
+     * written. If branchName is null nothing at all is written; otherwise the
+     * merged snapshots and a merge commit are saved, and the branch with that
+     * name (created if needed, but never the checked-out one) is pointed at it.
+     */
+    public MergeTreeResult mergeTree(String ours, String theirs, String branchName) {
+        if (branchName == null) {
+            beginRead();
+            return computeMergeTree(ours, theirs, null);
+        }
+        return updateAndGet(false, () -> {
+            validate(!branchName.equals(refs.getHeadBranchName()),
+                    "Cannot write a merge to the checked-out branch.");
+            MergeTreeResult result = computeMergeTree(ours, theirs, branchName);
+            refs.setFront(branchName, result.getCommitHash());
+            return result;
+        });
+    }
+
+    private MergeTreeResult computeMergeTree(String ours, String theirs, String branchName) {
+        String oursHash = resolveRevision(ours), theirsHash = resolveRevision(theirs);
+        // when one side contains the other, it is the result:
+        if (reach(oursHash).containsCommit(theirsHash)) {
+            return new MergeTreeResult(getCommitFromHash(oursHash).getSnapShots(),
+                    new ArrayList<>(), oursHash);
+        }
+        if (reach(theirsHash).containsCommit(oursHash)) {
+            return new MergeTreeResult(getCommitFromHash(theirsHash).getSnapShots(),
+                    new ArrayList<>(), theirsHash);
+        }
+        boolean write = branchName != null;
+        Commit split = getSplitCommit(theirsHash, oursHash);
+        MergePlan plan = MergePlan.plan(split.getSnapShots(),
+                getCommitFromHash(oursHash).getSnapShots(),
+                getCommitFromHash(theirsHash).getSnapShots(), store::readSnapContent, tracer);
+        plan.getFileMerges().parallelStream().forEach(fileMerge -> resolveFileMerge(fileMerge, write));
+        List<String> conflicts = new ArrayList<>();
+        for (MergePlan.FileMerge fileMerge : plan.getFileMerges()) {
+            if (fileMerge.isConflicted()) {
+                conflicts.add(fileMerge.getName());
+            }
+        }
+        conflicts.sort(null);
+        HashMap<String, String> files = plan.getResult();
+        String commitHash = write
+                ? createNewCommit("Merged " + theirs + " into " + ours + ".", files, oursHash, theirsHash)
+                : null;
+        return new MergeTreeResult(files, conflicts, commitHash);
+    }
+
+    // ==================== Replaying Commits: ====================
+
+    /**
+     * Applies the changes the given commit made to its parent on top of head,
+     * as a new commit with the same message.
+     */
+    public ReplayResult cherryPick(String commitId) {
+        return updateAndGet(true, () -> {
+            validateCleanForReplay();
+            Commit picked = getCommitFromHash(resolveRevision(commitId));
+            Commit head = getHeadCommit();
+            HashMap<String, String> files = head.getSnapShots();
+            MergePlan plan = replayPlan(picked, files);
+            validate(!plan.isEmpty(), "No changes added to the commit.");
+            HashMap<String, String> result = resolveReplay(plan);
+            if (hasConflicts(plan)) {
+                rememberConflicts(plan);
+                finishReplay(head.getCommitHash(), result);
+                return ReplayResult.replayed(head.getCommitHash(), 0, picked.getCommitHash());
+            }
+            String newHash = createNewCommit(picked.getMessage(), result, head.getCommitHash());
+            finishReplay(newHash, result);
+            return ReplayResult.replayed(newHash, 1, null);
+        });
+    }
+
+    /**
+     * Replays the commits of the current branch that upstream (a branch name
+     * or commit id) does not contain on top of upstream, oldest first, and
+     * points the branch at the last one. Merge commits are dropped, as are
+     * commits whose changes upstream already has. Everything happens against
+     * snapshot maps; the working tree is written once, at the end. Stops at
+     * the first commit that conflicts, keeping the ones replayed before it.
+     */
+    public ReplayResult rebase(String upstream) {
+        return updateAndGet(true, () -> {
+            validateCleanForReplay();
+            validate(!upstream.equals(refs.getHeadBranchName()), "Cannot rebase a branch onto itself.");
+            String baseHash = resolveRevision(upstream);
+            Commit head = getHeadCommit();
+            if (reach(head.getCommitHash()).containsCommit(baseHash)) {
+                return ReplayResult.replayed(head.getCommitHash(), 0, null); // up to date
+            }
+            ReachableSet upstreamReach = reach(baseHash);
+            if (upstreamReach.containsCommit(head.getCommitHash())) {
+                finishReplay(baseHash, getCommitFromHash(baseHash).getSnapShots());
+                return ReplayResult.fastForward(baseHash);
+            }
+
+            String tip = baseHash;
+            HashMap<String, String> files = getCommitFromHash(baseHash).getSnapShots();
+            int replayed = 0;
+            for (String hash : commitsToReplay(head.getCommitHash(), upstreamReach)) {
+                Commit commit = getCommitFromHash(hash);
+                MergePlan plan = replayPlan(commit, files);
+                if (plan.isEmpty()) {
+                    continue; // upstream already has these changes
+                }
+                HashMap<String, String> result = resolveReplay(plan);
+                if (hasConflicts(plan)) {
+                    rememberConflicts(plan);
+                    finishReplay(tip, result);
+                    return ReplayResult.replayed(tip, replayed, hash);
+                }
+                tip = createNewCommit(commit.getMessage(), result, tip);
+                files = result;
+                replayed++;
+            }
+            finishReplay(tip, files);
+            return ReplayResult.replayed(tip, replayed, null);
+        });
+    }
+
+    private void validateCleanForReplay() {
+        validate(getUntrackedFiles(getHeadCommit()).size() == 0,
+                "There is an untracked file in the way; delete it, or add and commit it first.");
+        validate(getIndex().isEmpty(), "You have uncommitted changes.");
+    }
+
+    /**
+     * Plans applying to files the changes commit made to its first parent.
+     */
+    private MergePlan replayPlan(Commit commit, HashMap<String, String> files) {
+        HashMap<String, String> base = commit.getParentHash() == null ? new HashMap<>()
+                : getCommitFromHash(commit.getParentHash()).getSnapShots();
+        return MergePlan.plan(base, files, commit.getSnapShots(), store::readSnapContent, tracer);
+    }
+
+    /**
+     * Merges the files plan merges, saving their snapshots, and returns the
+     * resulting files.
+     */
+    private HashMap<String, String> resolveReplay(MergePlan plan) {
+        plan.getFileMerges().parallelStream().forEach(fileMerge -> resolveFileMerge(fileMerge, true));
+        return plan.getResult();
+    }
+
+    private static boolean hasConflicts(MergePlan plan) {
+        return plan.getFileMerges().stream().anyMatch(MergePlan.FileMerge::isConflicted);
+    }
+
+    /**
+     * Returns the non-merge commits reachable from tipHash but not in
+     * upstream, each after its parents.
+     */
+    private List<String> commitsToReplay(String tipHash, ReachableSet upstream) {
+        List<String> order = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        seen.add(tipHash);
+        stack.push(tipHash);
+        while (!stack.isEmpty()) {
+            Commit commit = getCommitFromHash(stack.peek());
+            boolean parentsDone = true;
+            for (String parent : new String[]{commit.getMergedParentHash(), commit.getParentHash()}) {
+                if (parent != null && !upstream.containsCommit(parent) && seen.add(parent)) {
+                    stack.push(parent);
+                    parentsDone = false;
+                }
+            }
+            if (parentsDone) {
+                stack.pop();
+                if (commit.getMergedParentHash() == null) {
+                    order.add(commit.getCommitHash());
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Points head and its branch at tipHash and brings the working tree from
+     * the old head's files to files in one pass, writing only the files whose
+     * snapshot differs. files is normally the tip's own; after a conflict it
+     * is the conflicted result, which is left staged on top of the tip.
+     */
+    private void finishReplay(String tipHash, HashMap<String, String> files) {
+        HashMap<String, String> oldFiles = getHeadCommit().getSnapShots(),
+                tipFiles = getCommitFromHash(tipHash).getSnapShots();
+        for (String fileName : oldFiles.keySet()) {
+            if (!files.containsKey(fileName)) {
+                restrictedDelete(join(workTree, fileName));
+            }
+        }
+        files.entrySet().parallelStream()
+                .filter(file -> !file.getValue().equals(oldFiles.get(file.getKey())))
+                .forEach(file -> writeWorkFile(file.getKey(), store.readSnapContent(file.getValue())));
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            if (!file.getValue().equals(tipFiles.get(file.getKey()))) {
+                getIndex().stageAdd(file.getKey(), file.getValue());
+                indexDirty = true;
+            }
+        }
+        for (String fileName : tipFiles.keySet()) {
+            if (!files.containsKey(fileName)) {
+                stageForRm(fileName);
+            }
+        }
+        refs.setFront(refs.getHeadBranchName(), tipHash);
+        refs.setHeadCommitHash(tipHash);
+    }
+
+    // ==================== Checkout Helpers: ====================
+
+    /**
+     * @param fileName - name of file to checkout
+     * @param commit   - commit to checkout from
+     */
+    private void checkoutFileAt(String fileName, Commit commit) {
+        validate(commit.contains(fileName), "File does not exist in that commit.");
+        writeWorkFile(fileName, getContentOfFile(commit, fileName));
+    }
+
+    /**
+     * Should delete all files in the working tree that are in curr branch
+     * but not in checked-out branch are del
+     * Should clear staging area
+     * Checkout each file from the requested commit.
+     *
+     * @param hash - hash of requested commit
+     */
+    private void checkoutCommitAt(String hash) {
+        tracer.inSpan("checkoutCommitAt", () -> checkoutCommit(hash));
+    }
+
+    private void checkoutCommit(String hash) {
+        Commit headCommit = getHeadCommit();
+        validate(getUntrackedFiles(headCommit).size() == 0,
+                "There is an untracked file in the way; delete it, or add and commit it first.");
+
+        Commit requestedCommit = getCommitFromHash(hash);
+        Set<String> cwdFiles = new HashSet<>(listWorkTree());
+
+        // delete all files in the working tree that are in curr branch but
+        // not in branch to be checked-out are del:
+        for (String elem : new ArrayList<>(cwdFiles)) {
+            if (headCommit.contains(elem) && !requestedCommit.contains(elem)) {
+                restrictedDelete(join(workTree, elem));
+                cwdFiles.remove(elem);
+            }
+        }
+        // clear staging:
+        for (String elem : getIndex().clear()) {
+            restrictedDelete(join(workTree, elem));
+            cwdFiles.remove(elem);
+        }
+        indexDirty = true;
+        // Takes all files in front commit of given Branch, puts in the working tree (overwriting),
+        // except those the head has the same version of and that still hold it:
+        for (Map.Entry<String, String> entry : requestedCommit.getSnapShots().entrySet()) {
+            String elem = entry.getKey();
+            if (!entry.getValue().equals(headCommit.getSnapShots().get(elem)) || !cwdFiles.contains(elem)
+                    || !entry.getValue().equals(hashWorkFile(elem, join(workTree, elem)))) {
+                checkoutFileAt(elem, requestedCommit);
+            }
+        }
+
+        // move head to this commit
+        refs.setHeadCommitHash(hash);
+    }
+
+    // ==================== Updates: ====================
+
+    /**
+     * Runs op as one update of the repository: takes the index lock first if
+     * lockIndex (keeping it until the next flush), then flushes if autoFlush
+     * is on. If op fails while autoFlush is on, its in-memory changes to refs
+     * and the index are dropped instead.
+     */
+    private <T> T updateAndGet(boolean lockIndex, Supplier<T> op) {
+        beginRead();
+        if (lockIndex && !indexLock.isHeld()) {
+            indexLock.acquire(config.getLockTimeoutMillis());
+            if (!indexDirty) {
+                index = null; // re-read under the lock
+            }
+        }
+        boolean done = false;
+        try {
+            T result = op.get();
+            if (autoFlush) {
+                flush();
+            }
+            done = true;
+            return result;
+        } finally {
+            if (!done && autoFlush) {
+                discardChanges();
+            }
+        }
+    }
+
+    private void update(boolean lockIndex, Runnable op) {
+        updateAndGet(lockIndex, () -> {
+            op.run();
+            return null;
+        });
+    }
+
+    /**
+     * Unless changes are being held for a later flush, forgets cached refs
+     * and index so this operation sees what other processes have written.
+     */
+    private void beginRead() {
+        if (autoFlush) {
+            refs.refresh();
+            if (!indexDirty) {
+                index = null;
+            }
+        }
+    }
+
+    private void discardChanges() {
+        refs.discardChanges();
+        index = null;
+        indexDirty = false;
+        indexLock.release();
+    }
+
+    // ==================== Save/Get Repo Info Methods: ====================
+
+    StagingArea getIndex() {
+        if (index == null) {
+            index = tracer.inSpan("loadIndex", this::loadIndex);
+        }
+        return index;
+    }
+
+    private StagingArea loadIndex() {
+        if (tracer.isEnabled() && indexFile.isFile()) {
+            tracer.countRead(null, indexFile);
+        }
+        Event event = tracer.getFlightEvents().begin(FlightEvents.OBJECT_READ);
+        StagingArea loaded = StagingArea.load(indexFile);
+        if (indexFile.isFile()) {
+            tracer.getFlightEvents().endObject(event, "index", indexFile);
+        }
+        String headHash = refs.getHeadCommitHash();
+        if (!loaded.isEmpty() && headHash != null) {
+            // left over if the refs of a commit were written but not its index
+            loaded.dropCommitted(getCommitFromHash(headHash).getSnapShots());
+        }
+        return loaded;
+    }
+
+    /**
+     * Returns the tracer recording what this repository does (disabled
+     * unless one was passed to open or init).
+     */
+    Tracer getTracer() {
+        return tracer;
+    }
+
+    Commit getHeadCommit() {
+        return getCommitFromHash(refs.getHeadCommitHash());
+    }
+
+    // ==================== Getting Methods: ====================
+
+    /**
+     * Returns Commit object from commits folder based on provided
+     * commitHash, returns null if commit with given hash does not exist
+     */
+    Commit getCommitFromHash(String commitHash) {
+        return store.readCommit(commitHash);
+    }
+
+    /**
+     * Returns the content of fileName as tracked by the given commit.
+     * Note: do not use unless you have verified that the given commit
+     * contains file named {name} (use contains() method first)
+     */
+    String getContentOfFile(Commit commit, String fileName) {
+        return store.readContent(commit, fileName);
+    }
+
+    /**
+     * Returns all files in the working tree that are untracked by given commit
+     *
+     * @param commit - Given commit object
+     * @return - ArrayList of all untracked files
+     */
+    private ArrayList<String> getUntrackedFiles(Commit commit) {
+        return tracer.inSpan("getUntrackedFiles", () -> {
+            ArrayList<String> untracked = new ArrayList<>();
+            for (String elem : listWorkTree()) {
+                if (!getIndex().isStaged(elem) && !commit.contains(elem)) {
+                    untracked.add(elem);
+                }
+            }
+            return untracked;
+        });
+    }
+
+    /**
+     * Returns all files in the working tree that differ from their versions in given commit
+     * Tags them with respective tags: modified/deleted
+     *
+     * @param commit - Given commit object
+     * @return - ArrayList of all modded files with respective tags
+     */
+    private ArrayList<String> getModsNotStaged(Commit commit) {
+        ArrayList<String> modsNotStaged = new ArrayList<>();
+        for (String elem : commit.getSnapShots().keySet()) {
+            if (!getIndex().isStaged(elem) && !commit.contains(elem)) {
+                if (workFileExists(elem)) {
+                    modsNotStaged.add(elem + "(modified)");
+                } else {
+                    modsNotStaged.add(elem + "(deleted)");
+                }
+            }
+        }
+        return modsNotStaged;
+    }
+
+    Commit getSplitCommit(String b1Hash, String b2Hash) {
+        return tracer.inSpan("getSplitCommit", () -> findSplitCommit(b1Hash, b2Hash));
+    }
+
+    private Commit findSplitCommit(String b1Hash, String b2Hash) {
+        // Note: this split command is not very smart
+        // It will only search the graph 1 parent away from
+        // main branch each time (doesn't fully search)
+        Commit b1ptr = getCommitFromHash(b1Hash),
+                b2ptr = getCommitFromHash(b2Hash);
+        Set<String> b1Hashes = new HashSet<>();
+        b1Hashes.add(b1ptr.getCommitHash());
+
+        while (b1ptr.hasParent()) {
+            b1ptr = getCommitFromHash(b1ptr.getParentHash());
+            b1Hashes.add(b1ptr.getCommitHash());
+        }
+        while (b2ptr.hasParent()) {
+            if (b1Hashes.contains(b2ptr.getCommitHash())) {
+                return b2ptr;
+            }
+            // bruh
+            String b2ptrMPHash = b2ptr.getMergedParentHash();
+            if (b2ptrMPHash != null && b1Hashes.contains(b2ptrMPHash)) {
+                return getCommitFromHash(b2ptrMPHash);
+            }
+            // end of bruh
+            b2ptr = getCommitFromHash(b2ptr.getParentHash());
+        }
+        return b1ptr;
+    }
+
+    // ==================== Creating/Modding Methods: ====================
+
+    /**
+     * Commits the staging area on top of head, recording mergedParentHash as a
+     * second parent when it is not null. Returns the new commit's hash.
+     */
+    private String commit(String message, String mergedParentHash) {
+        StagingArea stage = getIndex();
+        validate(!stage.isEmpty(), "No changes added to the commit.");
+        validate(message.length() > 0, "Please enter a commit message.");
+
+        HashMap<String, String> newSnapShotsMap = new HashMap<>(getHeadCommit().getSnapShots());
+
+        // add or overwrite all commit files with staged files
+        // (their snapshots were already saved when they were staged)
+        newSnapShotsMap.putAll(stage.getAdds());
+        for (String elem : stage.getRemoves()) {
+            // apply all staged removes
+            newSnapShotsMap.remove(elem);
+        }
+        recordResolutions(stage);
+        stage.clear();
+        indexDirty = true;
+
+        // add new commit to head branch
+        String headBranchName = refs.getHeadBranchName();
+        String newCommitHash = createNewCommit(message, newSnapShotsMap,
+                refs.getFront(headBranchName), mergedParentHash);
+        refs.setFront(headBranchName, newCommitHash);
+        refs.setHeadCommitHash(newCommitHash);
+        return newCommitHash;
+    }
+
+    /**
+     * creates new commit in file structure and returns its hash
+     *
+     * @param message    - message of commit
+     * @param parentHash       - hash of parent commit, null for a root commit
+     * @param mergedParentHash - hash of second parent, null unless a merge
+     * @return - String representing the hash of newly created commit
+     */
+    private String createNewCommit(String message, HashMap<String, String> copies,
+                                   String parentHash, String mergedParentHash) {
+        Commit newCommit = new Commit(message, copies, getHasher());
+        newCommit.setParentHash(parentHash);
+        newCommit.setMergedParentHash(mergedParentHash);
+        store.writeCommit(newCommit);
+        return newCommit.getCommitHash();
+    }
+
+    private String createNewCommit(String message, HashMap<String, String> copies,
+                                   String parentHash) {
+        return createNewCommit(message, copies, parentHash, null);
+    }
+
+    /**
+     * Stages file from the working tree (based on given fileName) for addition.
+     */
+    private void stageForAdd(String fileName) {
+        String hash = hashForStage(fileName, null, getIndex())[1];
+        if (!hash.equals(getIndex().getStagedHash(fileName))) {
+            getIndex().stageAdd(fileName, hash);
+            indexDirty = true;
+        }
+    }
+
+    /**
+     * Snapshots the working-tree version of fileName. Returns {fileName, null}
+     * if that is exactly the version tracked by headCommit, otherwise saves the
+     * snapshot straight into the snaps directory (unless it is already there)
+     * and returns {fileName, snapShotHash} for the index to record.
+     * Only reads the index, so it is safe to call for many files at once.
+     * The file is hashed straight from disk first, and only read into a
+     * snapshot if it matches neither head's nor the staged version.
+     */
+    private String[] hashForStage(String fileName, Commit headCommit, StagingArea stage) {
+        File file = join(workTree, fileName);
+        String streamed = hashWorkFile(fileName, file);
+        if (headCommit != null && streamed.equals(headCommit.getSnapShots().get(fileName))) {
+            return new String[]{fileName, null};
+        }
+        if (streamed.equals(stage.getStagedHash(fileName))) {
+            return new String[]{fileName, streamed};
+        }
+        String cwdContent = readWorkFile(file);
+        SnapShot snap = newSnapShot(fileName, cwdContent);
+        String hash = snap.getHash();
+        if (headCommit != null && hash.equals(headCommit.getSnapShots().get(fileName))) {
+            return new String[]{fileName, null};
+        }
+        if (!hash.equals(stage.getStagedHash(fileName))) {
+            store.writeSnap(snap);
+        }
+        return new String[]{fileName, hash};
+    }
+
+    private SnapShot newSnapShot(String fileName, String content) {
+        return new SnapShot(fileName, content, 1, getHasher());
+    }
+
+    /**
+     * Returns the hasher for this repository's object format.
+     */
+    private Hasher getHasher() {
+        if (hasher == null) {
+            hasher = new Hasher(config.getObjectFormat());
+        }
+        return hasher;
+    }
+
+    /**
+     * Stages file (based on given fileName) for removal in the index.
+     */
+    private void stageForRm(String fileName) {
+        getIndex().stageRemove(fileName);
+        indexDirty = true;
+    }
+
+    /**
+     * Drops fileName from the staged additions. Its snapshot stays in the
+     * snaps directory, where it is shared with any commit tracking it.
+     */
+    private void unstageAdd(String fileName) {
+        if (getIndex().unstageAdd(fileName)) {
+            indexDirty = true;
+        }
+    }
+
+    // ==================== Misc Methods: ====================
+
+    /**
+     * Expands the paths given to add into the sorted, distinct names of the
+     * working-tree files they denote. Only plain files directly in the working
+     * tree are tracked, so a directory path must name the working tree itself.
+     */
+    private List<String> expandPaths(String[] paths) {
+        TreeSet<String> fileNames = new TreeSet<>();
+        for (String path : paths) {
+            File file = join(workTree, path);
+            if (file.isDirectory()) {
+                validate(isWorkTree(file), "File does not exist.");
+                fileNames.addAll(listWorkTree());
+            } else if (isWorkFile(file)) {
+                fileNames.add(file.getName());
+            } else if (isGlob(path)) {
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + path);
+                boolean matched = false;
+                for (String elem : listWorkTree()) {
+                    if (matcher.matches(Path.of(elem))) {
+                        fileNames.add(elem);
+                        matched = true;
+                    }
+                }
+                validate(matched, "File does not exist.");
+            } else {
+                validate(false, "File does not exist.");
+            }
+        }
+        return new ArrayList<>(fileNames);
+    }
+
+    // ==================== Working Tree I/O: ====================
+    // Counted here for --trace (see Tracer).
+
+    /**
+     * Returns the names of the plain files in the working tree.
+     */
+    private List<String> listWorkTree() {
+        return tracer.inSpan("plainFilenamesIn", () -> {
+            tracer.count(Tracer.DIRS_LISTED, 1);
+            return plainFilenamesIn(workTree);
+        });
+    }
+
+    private boolean isWorkFile(File file) {
+        tracer.count(Tracer.FILES_STATED, 1);
+        return file.isFile();
+    }
+
+    private boolean workFileExists(String fileName) {
+        tracer.count(Tracer.FILES_STATED, 1);
+        return join(workTree, fileName).exists();
+    }
+
+    private String readWorkFile(File file) {
+        tracer.countRead(null, file);
+        Event event = tracer.getFlightEvents().begin(FlightEvents.WORK_FILE);
+        String content = readContentsAsString(file);
+        tracer.getFlightEvents().endWorkFile(event, "read", file);
+        return content;
+    }
+
+    /**
+     * Returns the id a snapshot of file named fileName would have, streaming
+     * it from disk.
+     */
+    private String hashWorkFile(String fileName, File file) {
+        tracer.countRead(null, file);
+        Event event = tracer.getFlightEvents().begin(FlightEvents.WORK_FILE);
+        String hash = getHasher().hashFile(fileName, file);
+        tracer.getFlightEvents().endWorkFile(event, "hash", file);
+        return hash;
+    }
+
+    private void writeWorkFile(String fileName, String content) {
+        File file = join(workTree, fileName);
+        Event event = tracer.getFlightEvents().begin(FlightEvents.WORK_FILE);
+        writeContents(file, content);
+        tracer.getFlightEvents().endWorkFile(event, "write", file);
+        tracer.countWrite(null, file);
+    }
+
+    private boolean isWorkTree(File dir) {
+        try {
+            return dir.getCanonicalFile().equals(workTree.getCanonicalFile());
+        } catch (IOException excp) {
+            return false;
+        }
+    }
+
+    private static boolean isGlob(String path) {
+        return path.chars().anyMatch(c -> "*?[{".indexOf(c) >= 0);
+    }
+
+    /**
+     * If the requestedCommitHash is shorter than 40 char,
+     * it checks via the shorthand method, otherwise, it
+     * normally checks if a commit with that id exists.
+     */
+    String resolveCommitId(String requestedCommitHash) {
+        int reqHashLen = requestedCommitHash.length();
+        if (reqHashLen < getHasher().getIdLength()) {
+            for (String elem : store.commitHashes()) {
+                if (elem.regionMatches(0, requestedCommitHash, 0, reqHashLen)) {
+                    return elem;
+                }
+            }
+        }
+        validate(commitExists(requestedCommitHash), "No commit with that id exists.");
+        return requestedCommitHash;
+    }
+
+    /**
+     * Returns the front of the branch named rev if there is one, otherwise
+     * the commit rev (possibly abbreviated) names.
+     */
+    String resolveRevision(String rev) {
+        return refs.exists(rev) ? refs.getFront(rev) : resolveCommitId(rev);
+    }
+
+    boolean commitExists(String name) {
+        return store.hasCommit(name);
+    }
+
+    // ==================== Error Handling: ====================
+
+    /**
+     * Throws a GitletException with errorMessage unless condition holds.
+     */
+    static void validate(boolean condition, String errorMessage) {
+        if (!condition) {
+            throw new GitletException(errorMessage);
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the ids of a repository's objects with the hash function chosen
+ * when it was initialized (core.objectFormat: sha1, the default, or sha256).
+ * Each thread keeps its own MessageDigest and read buffer, so hashing many
+ * files in parallel allocates nothing per file, and files can be hashed
+ * straight from disk without decoding them into a String first.
+ * <p>
+ * Also offers a fast non-cryptographic 64-bit hash, for in-memory tables
+ * whose keys are always compared for equality afterwards anyway.
+ *
+ * @author Brandon Wong
+ */
+class Hasher {
+
+    // ==================== Object Formats: ====================
+    static final String SHA1 = "sha1";
+    static final String SHA256 = "sha256";
+
+    /** Bytes read from a file at a time when hashing it. */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // ==================== Hasher Metadata: ====================
+    private final String algorithm;
+    private final int idLength;
+    private final ThreadLocal<MessageDigest> digests;
+    private final ThreadLocal<ByteBuffer> buffers =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    /**
+     * Makes a hasher for the given object format, sha1 or sha256.
+     */
+    Hasher(String objectFormat) {
+        this.algorithm = algorithmOf(objectFormat);
+        this.idLength = newDigest().getDigestLength() * 2;
+        this.digests = ThreadLocal.withInitial(this::newDigest);
+    }
+
+    /**
+     * Throws a GitletException unless objectFormat is sha1 or sha256.
+     */
+    static String checkObjectFormat(String objectFormat) {
+        algorithmOf(objectFormat);
+        return objectFormat;
+    }
+
+    // ==================== Object Ids: ====================
+
+    /**
+     * Returns the id of the concatenation of vals, which may be any mixture
+     * of byte arrays and Strings (encoded as UTF-8), as lowercase hex.
+     */
+    String hash(Object... vals) {
+        MessageDigest md = digests.get();
+        for (Object val : vals) {
+            if (val instanceof byte[]) {
+                md.update((byte[]) val);
+            } else if (val instanceof String) {
+                md.update(((String) val).getBytes(StandardCharsets.UTF_8));
+            } else {
+                throw new IllegalArgumentException("improper type to hash");
+            }
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Returns what hash(prefix, contents of file) would, reading the file
+     * through a FileChannel a buffer at a time. For a file holding valid
+     * UTF-8 this equals the id of a snapshot named prefix of its content.
+     */
+    String hashFile(String prefix, File file) {
+        MessageDigest md = digests.get();
+        md.update(prefix.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = buffers.get();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                md.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException excp) {
+            md.reset();
+            throw new IllegalArgumentException(excp.getMessage());
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * Returns the number of hex digits in a full object id.
+     */
+    int getIdLength() {
+        return idLength;
+    }
+
+    // ==================== Fast Hashing: ====================
+
+    /**
+     * Returns a 64-bit FNV-1a hash of s, with its bits mixed at the end so
+     * every bit depends on every char. Not collision resistant.
+     */
+    static long fastHash(CharSequence s) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001B3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return h ^ (h >>> 33);
+    }
+
+    // ==================== Helper Functions: ====================
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException excp) {
+            throw new IllegalArgumentException("System does not support " + algorithm);
+        }
+    }
+
+    private static String algorithmOf(String objectFormat) {
+        return switch (objectFormat) {
+            case SHA1 -> "SHA-1";
+            case SHA256 -> "SHA-256";
+            default -> throw new GitletException("Invalid value for " + Config.OBJECT_FORMAT + ": "
+                    + objectFormat);
+        };
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[2 * i] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+            hex[2 * i + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return new String(hex);
+    }
+
+}
@@ -0,0 +1,117 @@
+package gitlet;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A distribution of latencies in microseconds, kept HDR-histogram style in
+ * log-linear buckets: exact below 128, and above that 128 buckets for every
+ * power of two, so any recorded value is known to within 1% however large
+ * it is, and the histogram stays small however many values go into it. Only
+ * buckets that have been hit are stored.
+ *
+ * @author Brandon Wong
+ */
+class LatencyHistogram implements Serializable {
+
+    /** Log2 of the number of linear buckets per power of two. */
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // ==================== LatencyHistogram Metadata: ====================
+    /** Bucket index -> values recorded in it. */
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long totalCount;
+    private long totalMicros;
+    private long minMicros = Long.MAX_VALUE;
+    private long maxMicros;
+
+    // ==================== Recording: ====================
+
+    /**
+     * Records one value, in microseconds; negative values count as 0.
+     */
+    void record(long micros) {
+        micros = Math.max(micros, 0);
+        counts.merge(bucketOf(micros), 1L, Long::sum);
+        totalCount++;
+        totalMicros += micros;
+        minMicros = Math.min(minMicros, micros);
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    // ==================== Getters: ====================
+
+    long getCount() {
+        return totalCount;
+    }
+
+    long getTotalMicros() {
+        return totalMicros;
+    }
+
+    long getMinMicros() {
+        return totalCount == 0 ? 0 : minMicros;
+    }
+
+    long getMaxMicros() {
+        return maxMicros;
+    }
+
+    /**
+     * Returns the value that percentile percent of the recorded values are
+     * at or below (to within a bucket), or 0 if nothing has been recorded.
+     */
+    long getPercentileMicros(double percent) {
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * totalCount));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= target) {
+                return Math.min(highestIn(bucket.getKey()), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    /**
+     * Returns how many recorded values are at or below micros (to within a
+     * bucket).
+     */
+    long getCountAtOrBelow(long micros) {
+        long count = 0;
+        for (Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            if (lowestIn(bucket.getKey()) > micros) {
+                break;
+            }
+            count += bucket.getValue();
+        }
+        return count;
+    }
+
+    // ==================== Buckets: ====================
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >> shift) - SUB_BUCKETS;
+    }
+
+    private static long lowestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    private static long highestIn(int bucket) {
+        int shift = bucket < SUB_BUCKETS ? 0 : bucket / SUB_BUCKETS - 1;
+        return lowestIn(bucket) + (1L << shift) - 1;
+    }
+
+}
@@ -0,0 +1,172 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Line diff of two texts with Myers' O(ND) algorithm in its linear-space
+ * form: instead of remembering every step of the search, each round looks
+ * for the "middle snake" of the shortest edit script from both ends at once
+ * and recurses on the halves before and after it. Memory is two int arrays
+ * the size of the inputs, however many lines differ.
+ * <p>
+ * Lines are interned to ints first, so the inner loops compare ints rather
+ * than strings, and common leading and trailing lines are stripped before
+ * every search.
+ *
+ * @author Brandon Wong
+ */
+class LineDiff {
+
+    // ==================== LineDiff Metadata: ====================
+    private final int[] a;
+    private final int[] b;
+    /** Forward and backward furthest-reaching x per diagonal, offset by vOffset. */
+    private final int[] vf;
+    private final int[] vb;
+    private final int vOffset;
+    /** Matching runs found so far, in order: x, y, length triples. */
+    private final List<int[]> snakes = new ArrayList<>();
+
+    private LineDiff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+        this.vOffset = a.length + b.length + 1;
+        this.vf = new int[2 * vOffset + 1];
+        this.vb = new int[2 * vOffset + 1];
+    }
+
+    /**
+     * Returns the edits turning lines a into lines b, in order.
+     */
+    static List<Edit> diff(List<String> a, List<String> b) {
+        HashMap<String, Integer> ids = new HashMap<>();
+        LineDiff d = new LineDiff(intern(a, ids), intern(b, ids));
+        d.compare(0, a.size(), 0, b.size());
+
+        List<Edit> edits = new ArrayList<>();
+        int x = 0, y = 0;
+        for (int[] snake : d.snakes) {
+            if (snake[0] > x || snake[1] > y) {
+                edits.add(new Edit(x, snake[0], y, snake[1]));
+            }
+            x = snake[0] + snake[2];
+            y = snake[1] + snake[2];
+        }
+        if (x < a.size() || y < b.size()) {
+            edits.add(new Edit(x, a.size(), y, b.size()));
+        }
+        return edits;
+    }
+
+    /**
+     * Splits text into lines, each keeping its line terminator (the last one
+     * may have none).
+     */
+    static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    // ==================== Search: ====================
+
+    /**
+     * Records the matching runs between a[aLo, aHi) and b[bLo, bHi).
+     */
+    private void compare(int aLo, int aHi, int bLo, int bHi) {
+        int prefix = 0;
+        while (aLo + prefix < aHi && bLo + prefix < bHi && a[aLo + prefix] == b[bLo + prefix]) {
+            prefix++;
+        }
+        addSnake(aLo, bLo, prefix);
+        aLo += prefix;
+        bLo += prefix;
+        int suffix = 0;
+        while (aLo < aHi - suffix && bLo < bHi - suffix
+                && a[aHi - 1 - suffix] == b[bHi - 1 - suffix]) {
+            suffix++;
+        }
+        if (aLo < aHi - suffix && bLo < bHi - suffix) {
+            int[] snake = middleSnake(aLo, aHi - suffix, bLo, bHi - suffix);
+            compare(aLo, snake[0], bLo, snake[1]);
+            addSnake(snake[0], snake[1], snake[2]);
+            compare(snake[0] + snake[2], aHi - suffix, snake[1] + snake[2], bHi - suffix);
+        }
+        addSnake(aHi - suffix, bHi - suffix, suffix);
+    }
+
+    /**
+     * Returns {x, y, length} of the middle snake of the shortest edit script
+     * turning a[aLo, aHi) into b[bLo, bHi), both of which are non-empty.
+     */
+    private int[] middleSnake(int aLo, int aHi, int bLo, int bHi) {
+        int n = aHi - aLo, m = bHi - bLo;
+        int delta = n - m;
+        boolean odd = (delta & 1) != 0;
+        int max = (n + m + 1) / 2;
+        vf[vOffset + 1] = 0;
+        vb[vOffset + 1] = 0;
+        for (int d = 0; d <= max; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && vf[vOffset + k - 1] < vf[vOffset + k + 1]))
+                        ? vf[vOffset + k + 1] : vf[vOffset + k - 1] + 1;
+                int y = x - k, x0 = x, y0 = y;
+                while (x < n && y < m && a[aLo + x] == b[bLo + y]) {
+                    x++;
+                    y++;
+                }
+                vf[vOffset + k] = x;
+                int kb = delta - k;
+                if (odd && kb >= -(d - 1) && kb <= d - 1 && x + vb[vOffset + kb] >= n) {
+                    return new int[]{aLo + x0, bLo + y0, x - x0};
+                }
+            }
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && vb[vOffset + k - 1] < vb[vOffset + k + 1]))
+                        ? vb[vOffset + k + 1] : vb[vOffset + k - 1] + 1;
+                int y = x - k, x0 = x;
+                while (x < n && y < m && a[aHi - 1 - x] == b[bHi - 1 - y]) {
+                    x++;
+                    y++;
+                }
+                vb[vOffset + k] = x;
+                int kf = delta - k;
+                if (!odd && kf >= -d && kf <= d && x + vf[vOffset + kf] >= n) {
+                    return new int[]{aHi - x, bHi - (x - k), x - x0};
+                }
+            }
+        }
+        throw new IllegalStateException("no middle snake");
+    }
+
+    private void addSnake(int x, int y, int length) {
+        if (length > 0) {
+            snakes.add(new int[]{x, y, length});
+        }
+    }
+
+    private static int[] intern(List<String> lines, HashMap<String, Integer> ids) {
+        int[] result = new int[lines.size()];
+        for (int i = 0; i < result.length; i++) {
+            Integer id = ids.get(lines.get(i));
+            if (id == null) {
+                id = ids.size();
+                ids.put(lines.get(i), id);
+            }
+            result[i] = id;
+        }
+        return result;
+    }
+
+}
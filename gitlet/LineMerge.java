@@ -0,0 +1,115 @@
+package gitlet;
+
+import java.util.List;
+
+/**
+ * diff3-style three-way merge of a file's lines. Both sides are diffed
+ * against the base version (the split commit's), and the base is walked in
+ * chunks: a chunk only one side changed takes that side's lines, a chunk
+ * both changed in the same way takes either, and a chunk where the changes
+ * differ, overlap or touch becomes a conflict holding just that chunk's lines
+ * from each side. Lines neither side touched are copied from the base.
+ *
+ * @author Brandon Wong
+ */
+class LineMerge {
+
+    // ==================== LineMerge Metadata: ====================
+    private final String content;
+    private final int conflicts;
+
+    private LineMerge(String content, int conflicts) {
+        this.content = content;
+        this.conflicts = conflicts;
+    }
+
+    /**
+     * Merges the changes ours and theirs each made to base.
+     */
+    static LineMerge merge(String base, String ours, String theirs) {
+        List<String> baseLines = LineDiff.splitLines(base),
+                ourLines = LineDiff.splitLines(ours),
+                theirLines = LineDiff.splitLines(theirs);
+        List<Edit> ourEdits = LineDiff.diff(baseLines, ourLines),
+                theirEdits = LineDiff.diff(baseLines, theirLines);
+
+        StringBuilder out = new StringBuilder();
+        int conflicts = 0;
+        int pos = 0, i = 0, j = 0; // next base line, next edit of ours, of theirs
+        while (i < ourEdits.size() || j < theirEdits.size()) {
+            // start a chunk at whichever next edit comes first in the base:
+            boolean oursFirst = j == theirEdits.size() || (i < ourEdits.size()
+                    && ourEdits.get(i).getAStart() <= theirEdits.get(j).getAStart());
+            int start = (oursFirst ? ourEdits.get(i) : theirEdits.get(j)).getAStart();
+            int end = start;
+            int iEnd = i, jEnd = j;
+            // grow it while an edit of either side overlaps or touches it:
+            while (true) {
+                if (iEnd < ourEdits.size() && ourEdits.get(iEnd).getAStart() <= end) {
+                    end = Math.max(end, ourEdits.get(iEnd++).getAEnd());
+                } else if (jEnd < theirEdits.size() && theirEdits.get(jEnd).getAStart() <= end) {
+                    end = Math.max(end, theirEdits.get(jEnd++).getAEnd());
+                } else {
+                    break;
+                }
+            }
+            appendLines(out, baseLines, pos, start);
+            if (jEnd == j) {
+                out.append(version(baseLines, ourLines, ourEdits, i, iEnd, start, end));
+            } else if (iEnd == i) {
+                out.append(version(baseLines, theirLines, theirEdits, j, jEnd, start, end));
+            } else {
+                String mine = version(baseLines, ourLines, ourEdits, i, iEnd, start, end),
+                        yours = version(baseLines, theirLines, theirEdits, j, jEnd, start, end);
+                if (mine.equals(yours)) {
+                    out.append(mine);
+                } else {
+                    out.append("<<<<<<< HEAD\n").append(mine)
+                            .append("=======\n").append(yours).append(">>>>>>>\n");
+                    conflicts++;
+                }
+            }
+            pos = end;
+            i = iEnd;
+            j = jEnd;
+        }
+        appendLines(out, baseLines, pos, baseLines.size());
+        return new LineMerge(out.toString(), conflicts);
+    }
+
+    // ==================== Getters: ====================
+
+    String getContent() {
+        return content;
+    }
+
+    boolean hasConflicts() {
+        return conflicts > 0;
+    }
+
+    // ==================== Helper Functions: ====================
+
+    /**
+     * Returns what one side made of base lines [start, end), given its edits
+     * [from, to), all of which lie within that range.
+     */
+    private static String version(List<String> baseLines, List<String> sideLines,
+                                  List<Edit> edits, int from, int to, int start, int end) {
+        StringBuilder out = new StringBuilder();
+        int pos = start;
+        for (Edit edit : edits.subList(from, to)) {
+            appendLines(out, baseLines, pos, edit.getAStart());
+            appendLines(out, sideLines, edit.getBStart(), edit.getBEnd());
+            pos = edit.getAEnd();
+        }
+        appendLines(out, baseLines, pos, end);
+        return out.toString();
+    }
+
+    private static void appendLines(StringBuilder out, List<String> lines, int from, int to) {
+        for (String line : lines.subList(from, to)) {
+            out.append(line);
+        }
+    }
+
+}
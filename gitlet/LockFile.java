@@ -0,0 +1,120 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static gitlet.Utils.*;
+
+/**
+ * An exclusive lock on a single .gitlet file, held by creating a sibling
+ * ".{name}.lock" file (which only one process can create). The new version of
+ * the locked file is written into the lock file itself and renamed over the
+ * target on commit(), which also releases the lock; release() gives it up
+ * without changing the target.
+ *
+ * @author Brandon Wong
+ */
+class LockFile {
+
+    /** How long to sleep between attempts to take a busy lock. */
+    private static final long RETRY_MILLIS = 5;
+
+    // ==================== LockFile Metadata: ====================
+    private final File target;
+    private final File lock;
+    private boolean held;
+
+    LockFile(File target) {
+        this.target = target;
+        this.lock = join(target.getParentFile(), "." + target.getName() + ".lock");
+    }
+
+    // ==================== Locking: ====================
+
+    /**
+     * Takes the lock, waiting up to timeoutMillis for another holder to let
+     * go of it. Throws a GitletException if it is still held after that.
+     */
+    void acquire(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            try {
+                Files.createFile(lock.toPath());
+                held = true;
+                return;
+            } catch (FileAlreadyExistsException excp) {
+                if (System.currentTimeMillis() >= deadline) {
+                    throw new GitletException("Unable to lock " + target.getName()
+                            + ": " + lock.getPath() + " exists. Another gitlet process may"
+                            + " be running; if not, remove the file.");
+                }
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GitletException("Interrupted while waiting for "
+                            + lock.getPath() + ".");
+                }
+            } catch (IOException excp) {
+                throw new IllegalArgumentException(excp);
+            }
+        }
+    }
+
+    boolean isHeld() {
+        return held;
+    }
+
+    File getTarget() {
+        return target;
+    }
+
+    /**
+     * Replaces the target with CONTENTS (as for Utils.writeContents) and
+     * releases the lock. If sync, the new contents are forced to disk first.
+     */
+    void commit(boolean sync, Object... contents) {
+        checkHeld();
+        try {
+            writeContents(lock, contents);
+            if (sync) {
+                Utils.sync(lock);
+            }
+            Files.move(lock.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            held = false;
+        } catch (IOException excp) {
+            release();
+            throw new IllegalArgumentException(excp);
+        }
+    }
+
+    /**
+     * Deletes the target and releases the lock.
+     */
+    void commitDelete() {
+        checkHeld();
+        target.delete();
+        release();
+    }
+
+    /**
+     * Releases the lock, if held, leaving the target untouched.
+     */
+    void release() {
+        if (held) {
+            lock.delete();
+            held = false;
+        }
+    }
+
+    private void checkHeld() {
+        if (!held) {
+            throw new IllegalStateException("lock on " + target + " is not held");
+        }
+    }
+
+}
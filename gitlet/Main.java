@@ -1,6 +1,9 @@
 package gitlet;
 
-//import jdk.jshell.execution.Util;
+import jdk.jfr.Event;
+
+import java.io.File;
+import java.util.Arrays;
 
 import static gitlet.Repository.*;
 
@@ -11,40 +14,92 @@ import static gitlet.Repository.*;
  */
 public class Main {
 
+    /** Environment variable that turns tracing on: json or chrome. */
+    static final String TRACE_ENV = "GITLET_TRACE";
+    /** Environment variable naming the file to write a trace to (default stderr). */
+    static final String TRACE_FILE_ENV = "GITLET_TRACE_FILE";
+
     /**
-     * Usage: java gitlet.Main ARGS, where ARGS contains
+     * Usage: java gitlet.Main [--trace[=json|chrome]] ARGS, where ARGS contains
      * <COMMAND> <OPERAND1> <OPERAND2> ...
+     * With --trace (or GITLET_TRACE set), a trace of the command's phases
+     * and I/O is written on exit to GITLET_TRACE_FILE, or else stderr.
      */
     public static void main(String[] args) {
+        String traceFormat = System.getenv(TRACE_ENV);
+        int first = 0;
+        while (first < args.length && (args[first].equals("--trace") || args[first].startsWith("--trace="))) {
+            traceFormat = args[first].equals("--trace") ? Tracer.JSON : args[first].substring(8);
+            first++;
+        }
+        args = Arrays.copyOfRange(args, first, args.length);
         if (args.length == 0) {
             System.out.println("Please enter a command.");
             System.exit(0);
         }
-        String firstArg = args[0];
-        if (firstArg.equals("init")) {
-            init(args);
-        } else if (GITLET_DIR.exists()) {
-            switch (firstArg) {
-                case "add" -> add(args);
-                case "commit" -> commit(args);
-                case "rm" -> remove(args);
-                case "log" -> log(args);
-                case "global-log" -> globalLog(args);
-                case "find" -> find(args);
-                case "status" -> status(args);
-                case "checkout" -> checkout(args);
-                case "branch" -> branch(args);
-                case "rm-branch" -> removeBranch(args);
-                case "reset" -> reset(args);
-                case "merge" -> merge(args);
-                default -> {
-                    System.out.println("No command with that name exists.");
-                    System.exit(0);
-                }
+        File cwd = new File(System.getProperty("user.dir"));
+        boolean tracing = traceFormat != null && !traceFormat.isEmpty();
+        Tracer tracer = null;
+        boolean failed = false;
+        FlightEvents flightEvents = new FlightEvents();
+        try {
+            if (tracing) {
+                Tracer.checkFormat(traceFormat);
             }
-        } else {
-            System.out.println("Not in an initialized Gitlet directory.");
+            tracer = new Tracer(tracing, flightEvents);
+            run(cwd, args, tracer);
+        } catch (GitletException e) {
+            System.out.println(e.getMessage());
+            failed = true;
+        } finally {
+            if (tracer != null && tracing) {
+                writeTrace(tracer, traceFormat);
+            }
+            flightEvents.close();
+        }
+        if (failed) {
             System.exit(0);
         }
     }
+
+    /**
+     * Runs the single command in ARGS against the repository rooted at CWD.
+     */
+    static void run(File cwd, String[] args) {
+        run(cwd, args, new Tracer(false));
+    }
+
+    /**
+     * Like run(cwd, args), recording the command in tracer.
+     */
+    static void run(File cwd, String[] args, Tracer tracer) {
+        String commandLine = "gitlet " + String.join(" ", args);
+        long start = System.nanoTime();
+        Event event = tracer.getFlightEvents().begin(FlightEvents.COMMAND);
+        boolean failed = true;
+        try {
+            tracer.inSpan(commandLine, () -> {
+                if (args[0].equals("init")) {
+                    init(cwd, args, tracer);
+                } else {
+                    GitletRepository repo = GitletRepository.open(cwd, tracer);
+                    execute(repo, args);
+                    repo.recordLatency(args[0], System.nanoTime() - start);
+                }
+            });
+            failed = false;
+        } finally {
+            tracer.getFlightEvents().endCommand(event, commandLine, failed);
+        }
+    }
+
+    private static void writeTrace(Tracer tracer, String format) {
+        String trace = tracer.render(format);
+        String file = System.getenv(TRACE_FILE_ENV);
+        if (file == null || file.isEmpty()) {
+            System.err.print(trace);
+        } else {
+            Utils.writeContents(new File(file), trace);
+        }
+    }
 }
@@ -0,0 +1,204 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static gitlet.RepoUtils.*;
+
+/**
+ * What merging one commit into another does to each file, decided from the
+ * snapshot hashes of the two commits and their split point, before anything
+ * is written. Files only the other side changed are taken from it, files it
+ * deleted (and head did not change) are deleted, and files both sides changed
+ * are merged line by line when the plan is applied.
+ * <p>
+ * Files one side renamed are followed first: RenameDetector pairs the files
+ * a side deleted with those it added (reading only those), and the split and
+ * opposite side's versions are then planned under the new name, so edits
+ * made to the old name on the other side carry over.
+ *
+ * @author Brandon Wong
+ */
+class MergePlan {
+
+    // ==================== MergePlan Metadata: ====================
+    private final HashMap<String, String> headFiles;
+    /** Files to delete from the working tree. */
+    private final List<String> deletes = new ArrayList<>();
+    /** File name -> hash of the other side's snapshot to check out. */
+    private final TreeMap<String, String> takes = new TreeMap<>();
+    private final List<FileMerge> fileMerges = new ArrayList<>();
+
+    private MergePlan(HashMap<String, String> headFiles) {
+        this.headFiles = headFiles;
+    }
+
+    /**
+     * Plans merging the files of other into those of head, whose latest
+     * common ancestor tracks splitFiles. read returns the content of a
+     * snapshot, for rename detection, which counts its work on tracer.
+     */
+    static MergePlan plan(HashMap<String, String> split, HashMap<String, String> head,
+                          HashMap<String, String> other, Function<String, String> read, Tracer tracer) {
+        Map<String, String> headRenames = renames(split, head, other, read, tracer),
+                otherRenames = renames(split, other, head, read, tracer);
+        HashMap<String, String> splitFiles = new HashMap<>(split),
+                headFiles = new HashMap<>(head),
+                otherFiles = new HashMap<>(other);
+        for (Map.Entry<String, String> rename : headRenames.entrySet()) {
+            splitFiles.put(rename.getValue(), splitFiles.remove(rename.getKey()));
+            otherFiles.put(rename.getValue(), otherFiles.remove(rename.getKey()));
+        }
+        for (Map.Entry<String, String> rename : otherRenames.entrySet()) {
+            splitFiles.put(rename.getValue(), splitFiles.remove(rename.getKey()));
+            headFiles.put(rename.getValue(), headFiles.remove(rename.getKey()));
+        }
+
+        MergePlan plan = new MergePlan(headFiles);
+        plan.deletes.addAll(otherRenames.keySet());
+        for (String fileName : splitFiles.keySet()) {
+            if (isSame(fileName, splitFiles, headFiles)) {
+                if (!otherFiles.containsKey(fileName)) {
+                    plan.deletes.add(fileName);
+                } else if (!isSame(fileName, otherFiles, headFiles)) {
+                    plan.takes.put(fileName, otherFiles.get(fileName));
+                }
+            } else if (!isSame(fileName, splitFiles, otherFiles)
+                    && !isSame(fileName, headFiles, otherFiles)) {
+                plan.fileMerges.add(new FileMerge(fileName, splitFiles.get(fileName),
+                        headFiles.get(fileName), otherFiles.get(fileName)));
+            }
+        }
+        for (String fileName : otherFiles.keySet()) {
+            if (!splitFiles.containsKey(fileName) && !headFiles.containsKey(fileName)) {
+                plan.takes.put(fileName, otherFiles.get(fileName));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Returns the renames from split to side worth following: those whose old
+     * name the opposite side still tracks and whose new name it does not.
+     */
+    private static Map<String, String> renames(HashMap<String, String> split,
+                                               HashMap<String, String> side,
+                                               HashMap<String, String> opposite,
+                                               Function<String, String> read, Tracer tracer) {
+        HashMap<String, String> deleted = new HashMap<>(), added = new HashMap<>();
+        for (Map.Entry<String, String> file : split.entrySet()) {
+            if (!side.containsKey(file.getKey()) && opposite.containsKey(file.getKey())) {
+                deleted.put(file.getKey(), file.getValue());
+            }
+        }
+        for (Map.Entry<String, String> file : side.entrySet()) {
+            if (!split.containsKey(file.getKey()) && !opposite.containsKey(file.getKey())) {
+                added.put(file.getKey(), file.getValue());
+            }
+        }
+        return RenameDetector.detect(deleted, added, read, tracer);
+    }
+
+    // ==================== Getters: ====================
+
+    /**
+     * True if the merge changes no file.
+     */
+    boolean isEmpty() {
+        return deletes.isEmpty() && takes.isEmpty() && fileMerges.isEmpty();
+    }
+
+    List<String> getDeletes() {
+        return deletes;
+    }
+
+    Map<String, String> getTakes() {
+        return takes;
+    }
+
+    List<FileMerge> getFileMerges() {
+        return fileMerges;
+    }
+
+    /**
+     * Returns the files of the merge commit. Every FileMerge must have been
+     * resolved first.
+     */
+    HashMap<String, String> getResult() {
+        HashMap<String, String> result = new HashMap<>(headFiles);
+        result.keySet().removeAll(deletes);
+        result.putAll(takes);
+        for (FileMerge fileMerge : fileMerges) {
+            result.put(fileMerge.getName(), fileMerge.getResultHash());
+        }
+        return result;
+    }
+
+    // ==================== FileMerge: ====================
+
+    /**
+     * A file both sides changed. Any of its hashes is null where that side
+     * does not track it. Resolved by whoever merges the contents.
+     */
+    static class FileMerge {
+        private final String name;
+        private final String baseHash;
+        private final String oursHash;
+        private final String theirsHash;
+        private String resultHash;
+        private boolean conflicted;
+        private boolean reused;
+
+        FileMerge(String name, String baseHash, String oursHash, String theirsHash) {
+            this.name = name;
+            this.baseHash = baseHash;
+            this.oursHash = oursHash;
+            this.theirsHash = theirsHash;
+        }
+
+        void resolve(String hash, boolean hasConflicts) {
+            this.resultHash = hash;
+            this.conflicted = hasConflicts;
+        }
+
+        /**
+         * Marks the result as coming from a recorded conflict resolution.
+         */
+        void markReused() {
+            this.reused = true;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getBaseHash() {
+            return baseHash;
+        }
+
+        String getOursHash() {
+            return oursHash;
+        }
+
+        String getTheirsHash() {
+            return theirsHash;
+        }
+
+        String getResultHash() {
+            return resultHash;
+        }
+
+        boolean isConflicted() {
+            return conflicted;
+        }
+
+        boolean isReused() {
+            return reused;
+        }
+    }
+
+}
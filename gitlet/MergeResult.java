@@ -0,0 +1,65 @@
+package gitlet;
+
+import java.util.List;
+
+/**
+ * Outcome of merging a branch into the current one.
+ *
+ * @author Brandon Wong
+ */
+public class MergeResult {
+
+    // ==================== MergeResult Metadata: ====================
+    private final String commitHash;
+    private final boolean fastForward;
+    private final boolean conflicted;
+    private final List<String> reused;
+
+    private MergeResult(String commitHash, boolean fastForward, boolean conflicted,
+                        List<String> reused) {
+        this.commitHash = commitHash;
+        this.fastForward = fastForward;
+        this.conflicted = conflicted;
+        this.reused = reused;
+    }
+
+    static MergeResult fastForward(String commitHash) {
+        return new MergeResult(commitHash, true, false, List.of());
+    }
+
+    static MergeResult merged(String commitHash, boolean conflicted, List<String> reused) {
+        return new MergeResult(commitHash, false, conflicted, reused);
+    }
+
+    // ==================== Getters: ====================
+
+    /**
+     * Hash of the commit head points at after the merge.
+     */
+    public String getCommitHash() {
+        return commitHash;
+    }
+
+    /**
+     * True if the current branch was simply moved to the given branch's front.
+     */
+    public boolean isFastForward() {
+        return fastForward;
+    }
+
+    /**
+     * True if at least one file was written with conflict markers.
+     */
+    public boolean hasConflicts() {
+        return conflicted;
+    }
+
+    /**
+     * Names of the files whose conflicts were resolved from recorded
+     * resolutions, in order.
+     */
+    public List<String> getReused() {
+        return reused;
+    }
+
+}
@@ -0,0 +1,52 @@
+package gitlet;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Outcome of merging two commits against the object store alone.
+ *
+ * @author Brandon Wong
+ */
+public class MergeTreeResult {
+
+    // ==================== MergeTreeResult Metadata: ====================
+    private final HashMap<String, String> files;
+    private final List<String> conflicts;
+    private final String commitHash;
+
+    MergeTreeResult(HashMap<String, String> files, List<String> conflicts, String commitHash) {
+        this.files = files;
+        this.conflicts = conflicts;
+        this.commitHash = commitHash;
+    }
+
+    // ==================== Getters: ====================
+
+    /**
+     * File name -> snapshot hash of every file in the merged result.
+     */
+    public HashMap<String, String> getFiles() {
+        return files;
+    }
+
+    /**
+     * Names of the files written with conflict markers, in order.
+     */
+    public List<String> getConflicts() {
+        return conflicts;
+    }
+
+    public boolean isClean() {
+        return conflicts.isEmpty();
+    }
+
+    /**
+     * Hash of the commit holding the result, or null if none was written.
+     * When one side already contains the other, that side's front.
+     */
+    public String getCommitHash() {
+        return commitHash;
+    }
+
+}
@@ -0,0 +1,65 @@
+package gitlet;
+
+import java.io.File;
+import java.util.TreeMap;
+
+import static gitlet.Utils.*;
+
+/**
+ * Latencies of the commands run in a repository, kept across runs in
+ * .gitlet/metrics/latency as one LatencyHistogram per command name. Each
+ * run adds its sample under .gitlet/metrics/.latency.lock, so concurrent
+ * commands never lose each other's samples; a sample that cannot get the
+ * lock within a short wait is dropped rather than holding up the command.
+ *
+ * @author Brandon Wong
+ */
+class Metrics {
+
+    /** How long a command waits to record its latency before giving up. */
+    private static final long LOCK_TIMEOUT_MILLIS = 200;
+
+    // ==================== Metrics Files: ====================
+    private final File metricsDir;
+    private final File latencyFile;
+    private final LockFile latencyLock;
+
+    Metrics(File gitletDir) {
+        this.metricsDir = join(gitletDir, "metrics");
+        this.latencyFile = join(metricsDir, "latency");
+        this.latencyLock = new LockFile(latencyFile);
+    }
+
+    // ==================== Recording: ====================
+
+    /**
+     * Adds a run of command that took micros microseconds.
+     */
+    void record(String command, long micros) {
+        metricsDir.mkdir();
+        try {
+            latencyLock.acquire(LOCK_TIMEOUT_MILLIS);
+        } catch (GitletException excp) {
+            return;
+        }
+        try {
+            TreeMap<String, LatencyHistogram> latencies = getLatencies();
+            latencies.computeIfAbsent(command, k -> new LatencyHistogram()).record(micros);
+            latencyLock.commit(false, serialize(latencies));
+        } finally {
+            latencyLock.release();
+        }
+    }
+
+    /**
+     * Returns the latencies recorded so far, by command name.
+     */
+    @SuppressWarnings("unchecked")
+    TreeMap<String, LatencyHistogram> getLatencies() {
+        if (!latencyFile.isFile()) {
+            return new TreeMap<>();
+        }
+        return readObject(latencyFile, TreeMap.class);
+    }
+
+}
@@ -0,0 +1,127 @@
+package gitlet;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The latency distribution of every command recorded in a repository, and
+ * gauges of its current size: how many commits and snapshots it stores
+ * (every object is a loose file of its own), their total size and how many
+ * branches it has. Rendered as a table, or in the Prometheus text
+ * exposition format for a node exporter's textfile collector.
+ *
+ * @author Brandon Wong
+ */
+public class MetricsReport {
+
+    /** Upper bounds, in seconds, of the latency buckets exported to Prometheus. */
+    private static final String BUCKET_BOUNDS = "0.001 0.0025 0.005 0.01 0.025 0.05 0.1 0.25 0.5 1 2.5 5 10 30 60";
+
+    // ==================== MetricsReport Metadata: ====================
+    private final TreeMap<String, LatencyHistogram> latencies;
+    private final int commits;
+    private final int snaps;
+    private final long storeBytes;
+    private final int branches;
+
+    MetricsReport(TreeMap<String, LatencyHistogram> latencies, int commits, int snaps,
+                  long storeBytes, int branches) {
+        this.latencies = latencies;
+        this.commits = commits;
+        this.snaps = snaps;
+        this.storeBytes = storeBytes;
+        this.branches = branches;
+    }
+
+    // ==================== Getters: ====================
+
+    /**
+     * Returns how many runs of command have been recorded.
+     */
+    public long getRuns(String command) {
+        LatencyHistogram histogram = latencies.get(command);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+
+    public int getCommits() {
+        return commits;
+    }
+
+    public int getSnaps() {
+        return snaps;
+    }
+
+    /**
+     * Total size in bytes of the stored commits and snapshots.
+     */
+    public long getStoreBytes() {
+        return storeBytes;
+    }
+
+    public int getBranches() {
+        return branches;
+    }
+
+    // ==================== Output: ====================
+
+    /**
+     * Returns one line per command with its run count and latency
+     * percentiles in milliseconds, then the gauges.
+     */
+    public String toText() {
+        StringBuilder out = new StringBuilder(String.format("%-14s %8s %10s %10s %10s %10s %10s%n",
+                "command", "runs", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            out.append(String.format("%-14s %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n", entry.getKey(),
+                    histogram.getCount(), histogram.getTotalMicros() / 1000.0 / histogram.getCount(),
+                    histogram.getPercentileMicros(50) / 1000.0, histogram.getPercentileMicros(90) / 1000.0,
+                    histogram.getPercentileMicros(99) / 1000.0, histogram.getMaxMicros() / 1000.0));
+        }
+        out.append(String.format("%nObjects: %d commits, %d snapshots, %d bytes.%nBranches: %d.%n",
+                commits, snaps, storeBytes, branches));
+        return out.toString();
+    }
+
+    /**
+     * Returns the latencies as a gitlet_command_duration_seconds histogram
+     * labelled by command, and the gauges, in the Prometheus text exposition
+     * format.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP gitlet_command_duration_seconds Time gitlet commands took to run.\n")
+                .append("# TYPE gitlet_command_duration_seconds histogram\n");
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            String command = "command=\"" + escapeLabel(entry.getKey()) + "\"";
+            LatencyHistogram histogram = entry.getValue();
+            for (String bound : BUCKET_BOUNDS.split(" ")) {
+                long micros = Math.round(Double.parseDouble(bound) * 1e6);
+                out.append("gitlet_command_duration_seconds_bucket{").append(command).append(",le=\"")
+                        .append(bound).append("\"} ").append(histogram.getCountAtOrBelow(micros)).append('\n');
+            }
+            out.append("gitlet_command_duration_seconds_bucket{").append(command).append(",le=\"+Inf\"} ")
+                    .append(histogram.getCount()).append('\n')
+                    .append("gitlet_command_duration_seconds_sum{").append(command).append("} ")
+                    .append(histogram.getTotalMicros() / 1e6).append('\n')
+                    .append("gitlet_command_duration_seconds_count{").append(command).append("} ")
+                    .append(histogram.getCount()).append('\n');
+        }
+        out.append("# HELP gitlet_objects Objects in the object store, each a loose file.\n")
+                .append("# TYPE gitlet_objects gauge\n")
+                .append("gitlet_objects{type=\"commit\"} ").append(commits).append('\n')
+                .append("gitlet_objects{type=\"snap\"} ").append(snaps).append('\n')
+                .append("# HELP gitlet_object_store_bytes Total size of the stored objects.\n")
+                .append("# TYPE gitlet_object_store_bytes gauge\n")
+                .append("gitlet_object_store_bytes ").append(storeBytes).append('\n')
+                .append("# HELP gitlet_branches Branches in the repository.\n")
+                .append("# TYPE gitlet_branches gauge\n")
+                .append("gitlet_branches ").append(branches).append('\n');
+        return out.toString();
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+}
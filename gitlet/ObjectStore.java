@@ -0,0 +1,260 @@
+package gitlet;
+
+import jdk.jfr.Event;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static gitlet.Utils.*;
+
+/**
+ * The commits and snapshots of a repository, stored one object per file
+ * under .gitlet/commits and .gitlet/snaps, named by hash. Objects are
+ * immutable once written, so each is written atomically and readers never
+ * see a partial object. New objects are not forced to disk as they are
+ * written; sync() forces everything written since the last sync in one go,
+ * which is what a transaction does right before it moves any refs.
+ *
+ * @author Brandon Wong
+ */
+class ObjectStore {
+
+    /** Maximum number of deserialized commits kept around between operations. */
+    private static final int COMMIT_CACHE_SIZE = 1024;
+
+    // ==================== Object Folders: ====================
+    private final File commitsDir;
+    private final File snapsDir;
+    private final Tracer tracer;
+
+    // ==================== In-memory State: ====================
+    private final Queue<File> unsynced = new ConcurrentLinkedQueue<>();
+    private final Map<String, Commit> commitCache =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Commit> eldest) {
+                    return size() > COMMIT_CACHE_SIZE;
+                }
+            };
+
+    ObjectStore(File gitletDir) {
+        this(gitletDir, new Tracer(false));
+    }
+
+    /**
+     * Makes a store that counts its reads, writes and listings in tracer.
+     */
+    ObjectStore(File gitletDir, Tracer tracer) {
+        this.commitsDir = join(gitletDir, "commits");
+        this.snapsDir = join(gitletDir, "snaps");
+        this.tracer = tracer;
+    }
+
+    /**
+     * Creates the object folders of a new repository.
+     */
+    void create() {
+        commitsDir.mkdir();
+        snapsDir.mkdir();
+    }
+
+    // ==================== Commits: ====================
+
+    /**
+     * Returns the commit with the given hash, or null if there is none.
+     */
+    Commit readCommit(String commitHash) {
+        Commit cached = commitCache.get(commitHash);
+        if (cached != null) {
+            return cached;
+        }
+        File location = join(commitsDir, commitHash);
+        tracer.count(Tracer.FILES_STATED, 1);
+        if (location.exists()) {
+            tracer.countRead(Tracer.OBJECTS_READ, location);
+            Event event = tracer.getFlightEvents().begin(FlightEvents.OBJECT_READ);
+            Commit commit = readObject(location, Commit.class);
+            tracer.getFlightEvents().endObject(event, "commit", location);
+            commitCache.put(commitHash, commit);
+            return commit;
+        } else {
+            return null;
+        }
+    }
+
+    boolean hasCommit(String commitHash) {
+        if (commitCache.containsKey(commitHash)) {
+            return true;
+        }
+        tracer.count(Tracer.FILES_STATED, 1);
+        return join(commitsDir, commitHash).isFile();
+    }
+
+    void writeCommit(Commit commit) {
+        write(join(commitsDir, commit.getCommitHash()), commit);
+        commitCache.put(commit.getCommitHash(), commit);
+    }
+
+    /**
+     * Returns the hashes of all commits in lexicographic order.
+     */
+    List<String> commitHashes() {
+        return objectNames(commitsDir);
+    }
+
+    // ==================== Snapshots: ====================
+
+    boolean hasSnap(String snapHash) {
+        tracer.count(Tracer.FILES_STATED, 1);
+        return join(snapsDir, snapHash).isFile();
+    }
+
+    /**
+     * Saves snap unless a snapshot with the same hash is already stored, in
+     * which case that one's modification time is bumped so gc treats it as
+     * new. Safe to call from several threads at once.
+     */
+    void writeSnap(SnapShot snap) {
+        File location = join(snapsDir, snap.getHash());
+        tracer.count(Tracer.FILES_STATED, 1);
+        if (!location.setLastModified(System.currentTimeMillis())) {
+            write(location, snap);
+        }
+    }
+
+    /**
+     * Returns the hashes of all snapshots in lexicographic order.
+     */
+    List<String> snapHashes() {
+        return objectNames(snapsDir);
+    }
+
+    /**
+     * Returns the total size in bytes of the stored commits and snapshots.
+     */
+    long sizeInBytes() {
+        long bytes = 0;
+        for (String commitHash : commitHashes()) {
+            bytes += join(commitsDir, commitHash).length();
+        }
+        for (String snapHash : snapHashes()) {
+            bytes += join(snapsDir, snapHash).length();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the file content saved in the snapshot with the given hash.
+     */
+    String readSnapContent(String snapHash) {
+        File location = join(snapsDir, snapHash);
+        tracer.countRead(Tracer.OBJECTS_READ, location);
+        Event event = tracer.getFlightEvents().begin(FlightEvents.OBJECT_READ);
+        String content = readObject(location, SnapShot.class).getContent();
+        tracer.getFlightEvents().endObject(event, "snap", location);
+        return content;
+    }
+
+    /**
+     * Returns the content of fileName as tracked by commit.
+     */
+    String readContent(Commit commit, String fileName) {
+        String snapHash = commit.getSnapShots().get(fileName);
+        if (snapHash != null) {
+            tracer.countRead(Tracer.OBJECTS_READ, join(snapsDir, snapHash));
+        }
+        Event event = tracer.getFlightEvents().begin(FlightEvents.SNAPSHOT_LOAD);
+        String content = commit.getContentOfFile(fileName, snapsDir);
+        tracer.getFlightEvents().endSnapshotLoad(event, fileName, snapHash, content);
+        return content;
+    }
+
+    // ==================== Pruning: ====================
+
+    /**
+     * Deletes the commit with the given hash if it was last written before
+     * cutoffMillis. Returns the number of bytes freed, or -1 if it was kept.
+     */
+    long pruneCommit(String commitHash, long cutoffMillis) {
+        long freed = prune(join(commitsDir, commitHash), cutoffMillis);
+        if (freed >= 0) {
+            commitCache.remove(commitHash);
+        }
+        return freed;
+    }
+
+    /**
+     * Deletes the snapshot with the given hash if it was last written before
+     * cutoffMillis. Returns the number of bytes freed, or -1 if it was kept.
+     */
+    long pruneSnap(String snapHash, long cutoffMillis) {
+        return prune(join(snapsDir, snapHash), cutoffMillis);
+    }
+
+    private static long prune(File location, long cutoffMillis) {
+        long size = location.length();
+        if (location.lastModified() >= cutoffMillis || !location.delete()) {
+            return -1;
+        }
+        return size;
+    }
+
+    // ==================== Durability: ====================
+
+    /**
+     * Forces every object written since the last sync to disk, followed by the
+     * object folders themselves so the new names are durable too. The forces
+     * are issued together, in parallel, rather than one per write.
+     */
+    void sync() {
+        List<File> files = new ArrayList<>();
+        for (File f = unsynced.poll(); f != null; f = unsynced.poll()) {
+            files.add(f);
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+        files.parallelStream().forEach(Utils::sync);
+        Utils.sync(commitsDir);
+        Utils.sync(snapsDir);
+    }
+
+    /**
+     * Forgets about unsynced objects without forcing them, for when the
+     * repository does not need them to be durable.
+     */
+    void discardUnsynced() {
+        unsynced.clear();
+    }
+
+    // ==================== Misc Methods: ====================
+
+    private void write(File location, Serializable obj) {
+        Event event = tracer.getFlightEvents().begin(FlightEvents.OBJECT_WRITE);
+        writeObjectAtomically(location, obj, false);
+        tracer.getFlightEvents().endObject(event, obj instanceof Commit ? "commit" : "snap", location);
+        tracer.countWrite(Tracer.OBJECTS_WRITTEN, location);
+        unsynced.add(location);
+    }
+
+    /**
+     * Lists the objects in dir, skipping temporary files of writes in progress.
+     */
+    private List<String> objectNames(File dir) {
+        tracer.count(Tracer.DIRS_LISTED, 1);
+        List<String> names = new ArrayList<>();
+        for (String name : plainFilenamesIn(dir)) {
+            if (!name.startsWith(".")) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+}
@@ -0,0 +1,142 @@
+package gitlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Read-only view of .gitlet/packed-refs, which holds the front commit of
+ * every branch that is not updated often enough to stay in the RefSnapshot.
+ * The file is a header line naming the ref version it was packed at, then one
+ * "{commit hash} {branch name}" line per branch, sorted by name. The file is
+ * mapped rather than read, and lookups binary search it, so finding one
+ * branch among many thousands only touches a few pages.
+ *
+ * @author Brandon Wong
+ */
+class PackedRefs {
+
+    private static final String HEADER = "# gitlet packed-refs ";
+
+    // ==================== PackedRefs Metadata: ====================
+    private final long version;
+    private final ByteBuffer entries;
+
+    private PackedRefs(long version, ByteBuffer entries) {
+        this.version = version;
+        this.entries = entries;
+    }
+
+    /**
+     * Maps the packed-refs file, or returns null if there is none.
+     */
+    static PackedRefs open(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int headerEnd = indexOf(buf, '\n', 0);
+            String header = decode(buf, 0, headerEnd);
+            if (!header.startsWith(HEADER)) {
+                throw new GitletException("Corrupt packed refs file: " + file.getPath());
+            }
+            long version = Long.parseLong(header.substring(HEADER.length()));
+            buf.position(Math.min(headerEnd + 1, buf.limit()));
+            return new PackedRefs(version, buf.slice());
+        } catch (IOException | NumberFormatException excp) {
+            throw new GitletException("Corrupt packed refs file: " + file.getPath());
+        }
+    }
+
+    // ==================== Lookups: ====================
+
+    /**
+     * The ref version (see RefSnapshot) this file was packed at.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the front commit hash of the named branch, or null if it is
+     * not in this file.
+     */
+    String get(String branchName) {
+        int lo = 0, hi = entries.limit();
+        while (lo < hi) { // lo and hi always sit at the start of a line
+            int lineStart = lo + (hi - lo) / 2;
+            while (lineStart > lo && entries.get(lineStart - 1) != '\n') {
+                lineStart--;
+            }
+            int lineEnd = indexOf(entries, '\n', lineStart);
+            int space = indexOf(entries, ' ', lineStart);
+            int cmp = decode(entries, space + 1, lineEnd).compareTo(branchName);
+            if (cmp == 0) {
+                return decode(entries, lineStart, space);
+            } else if (cmp < 0) {
+                lo = lineEnd + 1;
+            } else {
+                hi = lineStart;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns every entry, branch name -> front commit hash.
+     */
+    TreeMap<String, String> readAll() {
+        TreeMap<String, String> refs = new TreeMap<>();
+        int lineStart = 0;
+        while (lineStart < entries.limit()) {
+            int lineEnd = indexOf(entries, '\n', lineStart);
+            int space = indexOf(entries, ' ', lineStart);
+            refs.put(decode(entries, space + 1, lineEnd), decode(entries, lineStart, space));
+            lineStart = lineEnd + 1;
+        }
+        return refs;
+    }
+
+    // ==================== Writing: ====================
+
+    /**
+     * Replaces the file guarded by lock with one holding refs, packed at
+     * version, and releases the lock.
+     */
+    static void write(LockFile lock, long version, SortedMap<String, String> refs,
+                      boolean sync) {
+        StringBuilder contents = new StringBuilder(HEADER).append(version).append('\n');
+        for (Map.Entry<String, String> ref : refs.entrySet()) {
+            contents.append(ref.getValue()).append(' ').append(ref.getKey()).append('\n');
+        }
+        lock.commit(sync, contents.toString());
+    }
+
+    // ==================== Helper Functions: ====================
+
+    /**
+     * Returns the index of the first b at or after from, or the limit of buf.
+     */
+    private static int indexOf(ByteBuffer buf, char b, int from) {
+        for (int i = from; i < buf.limit(); i++) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return buf.limit();
+    }
+
+    private static String decode(ByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
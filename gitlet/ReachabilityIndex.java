@@ -0,0 +1,249 @@
+package gitlet;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import static gitlet.Utils.*;
+
+/**
+ * Reachability bitmaps over a numbering of the objects in a repository, saved
+ * in .gitlet/bitmaps. Every commit reachable from a branch or head when the
+ * index was built gets a number, and so does each snapshot it tracks; commits
+ * are numbered after their parents, so the set of objects reachable from a
+ * commit is mostly one long run of ones. Branch fronts, and every
+ * SAMPLE_INTERVAL-th commit besides, get an EwahBitmap of every object they
+ * reach.
+ * <p>
+ * Finding what a commit reaches then only means walking back to the nearest
+ * commits with a bitmap and OR-ing those in. Commits written after the index
+ * was built have no number and are walked (their ancestors that do have one
+ * are not), so the index never has to be current to be correct. Numbers are
+ * only ever appended to, so rebuilding keeps every existing bitmap.
+ *
+ * @author Brandon Wong
+ */
+class ReachabilityIndex implements Serializable {
+
+    /** Every how many newly numbered commits one gets a bitmap of its own. */
+    private static final int SAMPLE_INTERVAL = 64;
+
+    // ==================== ReachabilityIndex Metadata: ====================
+    /** Object number -> commit or snapshot hash. */
+    private final ArrayList<String> objectIds;
+    /** Which numbers belong to commits. */
+    private final EwahBitmap commitNumbers;
+    /** Commit hash -> every object it reaches, itself included. */
+    private final HashMap<String, EwahBitmap> bitmaps;
+    private transient HashMap<String, Integer> numbers;
+
+    private ReachabilityIndex(ArrayList<String> objectIds, EwahBitmap commitNumbers,
+                              HashMap<String, EwahBitmap> bitmaps) {
+        this.objectIds = objectIds;
+        this.commitNumbers = commitNumbers;
+        this.bitmaps = bitmaps;
+    }
+
+    /**
+     * Reads the index saved in file, or returns an empty one if there is none.
+     */
+    static ReachabilityIndex load(File file) {
+        return file.isFile() ? readObject(file, ReachabilityIndex.class) : empty();
+    }
+
+    /**
+     * Returns an index that numbers nothing, so every query walks.
+     */
+    static ReachabilityIndex empty() {
+        return new ReachabilityIndex(new ArrayList<>(), EwahBitmap.empty(), new HashMap<>());
+    }
+
+    void saveTo(File file) {
+        writeObjectAtomically(file, this, false);
+    }
+
+    // ==================== Building: ====================
+
+    /**
+     * Returns an index extending this one to number every object reachable
+     * from tips, with a bitmap for each tip.
+     */
+    ReachabilityIndex extend(ObjectStore store, Collection<String> tips) {
+        ArrayList<String> ids = new ArrayList<>(objectIds);
+        HashMap<String, EwahBitmap> newBitmaps = new HashMap<>(bitmaps);
+        ReachabilityIndex next = new ReachabilityIndex(ids, commitNumbers, newBitmaps);
+        next.getNumbers();
+        BitSet commits = commitNumbers.toBitSet();
+
+        List<String> order = unnumberedInTopoOrder(store, tips);
+        for (String hash : order) {
+            commits.set(next.number(hash));
+            for (String snap : store.readCommit(hash).getSnapShots().values()) {
+                if (!next.numbers.containsKey(snap)) {
+                    next.number(snap);
+                }
+            }
+        }
+        HashSet<String> tipSet = new HashSet<>(tips);
+        tipSet.remove(null);
+        for (int i = 0; i < order.size(); i++) {
+            if ((i + 1) % SAMPLE_INTERVAL == 0) {
+                tipSet.add(order.get(i));
+            }
+        }
+        // parents before children, so each walk stops at the bitmaps just made:
+        for (String hash : order) {
+            if (tipSet.remove(hash)) {
+                newBitmaps.put(hash, next.reach(store, List.of(hash)).getNumbered());
+            }
+        }
+        for (String hash : tipSet) { // tips that were numbered already
+            if (!newBitmaps.containsKey(hash)) {
+                newBitmaps.put(hash, next.reach(store, List.of(hash)).getNumbered());
+            }
+        }
+        return new ReachabilityIndex(ids, EwahBitmap.of(commits), newBitmaps);
+    }
+
+    private int number(String id) {
+        int n = objectIds.size();
+        objectIds.add(id);
+        numbers.put(id, n);
+        return n;
+    }
+
+    /**
+     * Returns the commits reachable from tips that have no number yet, each
+     * one after all of its parents.
+     */
+    private List<String> unnumberedInTopoOrder(ObjectStore store, Collection<String> tips) {
+        List<String> order = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        for (String tip : tips) {
+            if (tip != null && !getNumbers().containsKey(tip) && seen.add(tip)) {
+                stack.push(tip);
+            }
+            while (!stack.isEmpty()) {
+                String hash = stack.peek();
+                boolean parentsDone = true;
+                for (String parent : parentsOf(store.readCommit(hash))) {
+                    if (!getNumbers().containsKey(parent) && seen.add(parent)) {
+                        stack.push(parent);
+                        parentsDone = false;
+                    }
+                }
+                if (parentsDone) {
+                    order.add(stack.pop());
+                }
+            }
+        }
+        return order;
+    }
+
+    // ==================== Queries: ====================
+
+    /**
+     * Returns every object reachable from any of the given commits.
+     */
+    ReachableSet reach(ObjectStore store, Collection<String> commits) {
+        EwahBitmap fromBitmaps = EwahBitmap.empty();
+        BitSet walked = new BitSet();
+        HashSet<String> extraCommits = new HashSet<>(), extraSnaps = new HashSet<>();
+        Deque<String> toVisit = new ArrayDeque<>();
+        for (String hash : commits) {
+            if (hash != null) {
+                toVisit.push(hash);
+            }
+        }
+        while (!toVisit.isEmpty()) {
+            String hash = toVisit.pop();
+            Integer n = getNumbers().get(hash);
+            if (n != null) {
+                if (walked.get(n) || fromBitmaps.get(n)) {
+                    continue;
+                }
+                EwahBitmap bitmap = bitmaps.get(hash);
+                if (bitmap != null) {
+                    fromBitmaps = fromBitmaps.or(bitmap);
+                    continue;
+                }
+                walked.set(n);
+            } else if (!extraCommits.add(hash)) {
+                continue;
+            }
+            Commit commit = store.readCommit(hash);
+            for (String snap : commit.getSnapShots().values()) {
+                Integer s = getNumbers().get(snap);
+                if (s != null) {
+                    walked.set(s);
+                } else {
+                    extraSnaps.add(snap);
+                }
+            }
+            for (String parent : parentsOf(commit)) {
+                toVisit.push(parent);
+            }
+        }
+        return new ReachableSet(this, fromBitmaps.or(EwahBitmap.of(walked)),
+                extraCommits, extraSnaps);
+    }
+
+    /**
+     * Returns the number of the given object, or -1 if it has none.
+     */
+    int numberOf(String id) {
+        Integer n = getNumbers().get(id);
+        return n == null ? -1 : n;
+    }
+
+    String idOf(int number) {
+        return objectIds.get(number);
+    }
+
+    /**
+     * Returns the numbers that belong to commits.
+     */
+    EwahBitmap getCommitNumbers() {
+        return commitNumbers;
+    }
+
+    int size() {
+        return objectIds.size();
+    }
+
+    int bitmapCount() {
+        return bitmaps.size();
+    }
+
+    // ==================== Helper Functions: ====================
+
+    private HashMap<String, Integer> getNumbers() {
+        if (numbers == null) {
+            numbers = new HashMap<>();
+            for (int i = 0; i < objectIds.size(); i++) {
+                numbers.put(objectIds.get(i), i);
+            }
+        }
+        return numbers;
+    }
+
+    private static List<String> parentsOf(Commit commit) {
+        List<String> parents = new ArrayList<>(2);
+        if (commit.getParentHash() != null) {
+            parents.add(commit.getParentHash());
+        }
+        if (commit.getMergedParentHash() != null) {
+            parents.add(commit.getMergedParentHash());
+        }
+        return parents;
+    }
+
+}
@@ -0,0 +1,76 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The objects reachable from some commits, as found by ReachabilityIndex:
+ * a bitmap of the numbered ones plus the hashes of objects newer than the
+ * index.
+ *
+ * @author Brandon Wong
+ */
+class ReachableSet {
+
+    // ==================== ReachableSet Metadata: ====================
+    private final ReachabilityIndex index;
+    private final EwahBitmap numbered;
+    private final Set<String> extraCommits;
+    private final Set<String> extraSnaps;
+
+    ReachableSet(ReachabilityIndex index, EwahBitmap numbered,
+                 Set<String> extraCommits, Set<String> extraSnaps) {
+        this.index = index;
+        this.numbered = numbered;
+        this.extraCommits = extraCommits;
+        this.extraSnaps = extraSnaps;
+    }
+
+    EwahBitmap getNumbered() {
+        return numbered;
+    }
+
+    boolean containsCommit(String commitHash) {
+        int n = index.numberOf(commitHash);
+        return n >= 0 ? numbered.get(n) : extraCommits.contains(commitHash);
+    }
+
+    /**
+     * Returns the number of commits and snapshots in this set.
+     */
+    long count() {
+        return numbered.cardinality() + extraCommits.size() + extraSnaps.size();
+    }
+
+    /**
+     * Returns the objects in this set but not in other, which must come from
+     * the same index.
+     */
+    ReachableSet andNot(ReachableSet other) {
+        Set<String> commits = new HashSet<>(extraCommits), snaps = new HashSet<>(extraSnaps);
+        commits.removeAll(other.extraCommits);
+        snaps.removeAll(other.extraSnaps);
+        return new ReachableSet(index, numbered.andNot(other.numbered), commits, snaps);
+    }
+
+    /**
+     * Returns the hashes of the commits in this set, in no particular order.
+     */
+    List<String> commitHashes() {
+        List<String> hashes = new ArrayList<>(extraCommits);
+        numbered.and(index.getCommitNumbers()).forEach(n -> hashes.add(index.idOf(n)));
+        return hashes;
+    }
+
+    /**
+     * Returns the hashes of the snapshots in this set, in no particular order.
+     */
+    List<String> snapHashes() {
+        List<String> hashes = new ArrayList<>(extraSnaps);
+        numbered.andNot(index.getCommitNumbers()).forEach(n -> hashes.add(index.idOf(n)));
+        return hashes;
+    }
+
+}
@@ -0,0 +1,76 @@
+package gitlet;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * An immutable, versioned picture of every ref in a repository: the head
+ * commit, the head branch and the front commit of each branch updated since
+ * refs were last packed (the rest are in PackedRefs). A repository keeps
+ * exactly one in .gitlet/refs and replaces it as a whole, so a reader always
+ * sees all refs as they were at a single point in time.
+ *
+ * @author Brandon Wong
+ */
+class RefSnapshot implements Serializable {
+
+    // ==================== RefSnapshot Metadata: ====================
+    /** Incremented by every update, starting at 1 for a new repository. */
+    private final long version;
+    private final String headCommitHash;
+    private final String headBranchName;
+    /**
+     * Branch name -> front commit hash of each loose branch, a null value
+     * marks a packed branch that has since been removed.
+     */
+    private final TreeMap<String, String> branches;
+
+    RefSnapshot(long version, String headCommitHash, String headBranchName,
+                Map<String, String> branches) {
+        this.version = version;
+        this.headCommitHash = headCommitHash;
+        this.headBranchName = headBranchName;
+        this.branches = new TreeMap<>(branches);
+    }
+
+    // ==================== Getters: ====================
+
+    long getVersion() {
+        return version;
+    }
+
+    String getHeadCommitHash() {
+        return headCommitHash;
+    }
+
+    String getHeadBranchName() {
+        return headBranchName;
+    }
+
+    /**
+     * Returns true if this snapshot overrides whatever the packed refs say
+     * about the named branch.
+     */
+    boolean isLoose(String branchName) {
+        return branches.containsKey(branchName);
+    }
+
+    /**
+     * Returns the front commit hash of the named loose branch, or null if it
+     * is not loose or has been removed.
+     */
+    String getFront(String branchName) {
+        return branches.get(branchName);
+    }
+
+    /**
+     * Loose branch name -> front commit hash, in lexicographic order.
+     */
+    SortedMap<String, String> getBranches() {
+        return Collections.unmodifiableSortedMap(branches);
+    }
+
+}
@@ -0,0 +1,338 @@
+package gitlet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import static gitlet.Utils.*;
+
+/**
+ * In-memory view of a repository's refs: the head commit, the head branch and
+ * the front commit of each branch. Refs live in one RefSnapshot saved in
+ * .gitlet/refs, which is read once on first use and replaced as a whole by an
+ * atomic rename. Readers never lock and can never see half of an update, no
+ * matter how many writers are running.
+ * <p>
+ * So that repositories with very many branches do not rewrite all of them on
+ * every update, branches not changed recently are moved into PackedRefs, which
+ * is binary searched instead of read whole. The snapshot's loose entries take
+ * precedence over the packed ones. A packed file written at version v holds
+ * the refs of snapshot v - 1, so any snapshot of version v - 1 or later reads
+ * consistently on top of it.
+ * <p>
+ * Changes are kept in memory until flush() writes them back. Branch updates
+ * are compare-and-swap: flush() only moves a branch if the current snapshot
+ * still holds the value this Refs based its change on, so a concurrent
+ * writer's update is never silently overwritten. Head is per working tree and
+ * is guarded by the index lock instead.
+ *
+ * @author Brandon Wong
+ */
+class Refs {
+
+    /** How many loose branches a snapshot may hold before flush() packs them. */
+    private static final int MAX_LOOSE = 256;
+
+    // ==================== Ref Files: ====================
+    private final File refsFile;
+    private final LockFile refsLock;
+    private final LockFile packedLock;
+    /** Where repositories created before .gitlet/refs kept their refs. */
+    private final File legacyHeadCommitFile;
+    private final File legacyHeadBranchFile;
+    private final File legacyBranchesDir;
+
+    // ==================== Cached State: ====================
+    /** The snapshot last read or written, null until needed. */
+    private RefSnapshot snapshot;
+    /** The packed refs read together with snapshot, null if none. */
+    private PackedRefs packed;
+    private String headCommitHash;
+    private String headBranchName;
+    /** Changed branch name -> new front commit hash, null for a removed branch. */
+    private final TreeMap<String, String> changedFronts = new TreeMap<>();
+    /** Changed branch name -> front commit hash the change was based on. */
+    private final HashMap<String, String> expected = new HashMap<>();
+
+    Refs(File gitletDir) {
+        this.refsFile = join(gitletDir, "refs");
+        this.refsLock = new LockFile(refsFile);
+        this.packedLock = new LockFile(join(gitletDir, "packed-refs"));
+        this.legacyHeadCommitFile = join(gitletDir, "HEAD.info");
+        this.legacyHeadBranchFile = join(gitletDir, "BRANCH.info");
+        this.legacyBranchesDir = join(gitletDir, "branches");
+    }
+
+    // ==================== Head: ====================
+
+    String getHeadCommitHash() {
+        return headCommitHash != null ? headCommitHash : getSnapshot().getHeadCommitHash();
+    }
+
+    void setHeadCommitHash(String hash) {
+        headCommitHash = hash;
+    }
+
+    String getHeadBranchName() {
+        return headBranchName != null ? headBranchName : getSnapshot().getHeadBranchName();
+    }
+
+    void setHeadBranchName(String name) {
+        headBranchName = name;
+    }
+
+    // ==================== Branches: ====================
+
+    /**
+     * Returns the front commit hash of the named branch, or null if no
+     * such branch exists.
+     */
+    String getFront(String branchName) {
+        if (changedFronts.containsKey(branchName)) {
+            return changedFronts.get(branchName);
+        }
+        getSnapshot();
+        return frontIn(snapshot, packed, branchName);
+    }
+
+    boolean exists(String branchName) {
+        return getFront(branchName) != null;
+    }
+
+    /**
+     * Points the named branch at hash, creating the branch if needed.
+     */
+    void setFront(String branchName, String hash) {
+        change(branchName, hash);
+    }
+
+    void remove(String branchName) {
+        change(branchName, null);
+    }
+
+    /**
+     * Returns the names of all branches in lexicographic order.
+     */
+    List<String> branchNames() {
+        return new ArrayList<>(getBranches().keySet());
+    }
+
+    private void change(String branchName, String hash) {
+        if (!expected.containsKey(branchName)) {
+            getSnapshot();
+            expected.put(branchName, frontIn(snapshot, packed, branchName));
+        }
+        changedFronts.put(branchName, hash);
+    }
+
+    /**
+     * Branch name -> front commit hash with this Refs' changes applied.
+     */
+    private TreeMap<String, String> getBranches() {
+        getSnapshot();
+        TreeMap<String, String> branches = allIn(snapshot, packed);
+        applyChanges(branches, changedFronts);
+        return branches;
+    }
+
+    /**
+     * Puts every change (branch name -> new front, null for removed) into
+     * branches.
+     */
+    private static void applyChanges(Map<String, String> branches,
+                                     Map<String, String> changes) {
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                branches.put(change.getKey(), change.getValue());
+            } else {
+                branches.remove(change.getKey());
+            }
+        }
+    }
+
+    private static String frontIn(RefSnapshot snap, PackedRefs packedRefs, String branchName) {
+        if (snap.isLoose(branchName) || packedRefs == null) {
+            return snap.getFront(branchName);
+        }
+        return packedRefs.get(branchName);
+    }
+
+    private static TreeMap<String, String> allIn(RefSnapshot snap, PackedRefs packedRefs) {
+        TreeMap<String, String> branches =
+                packedRefs == null ? new TreeMap<>() : packedRefs.readAll();
+        applyChanges(branches, snap.getBranches());
+        return branches;
+    }
+
+    // ==================== Persistence: ====================
+
+    /**
+     * Reads the snapshot and packed refs if they are not cached yet, retrying
+     * if a concurrent pack replaced the packed refs after the snapshot was read.
+     */
+    private RefSnapshot getSnapshot() {
+        for (int attempt = 0; snapshot == null; attempt++) {
+            RefSnapshot snap = readSnapshot();
+            PackedRefs packedRefs = PackedRefs.open(packedLock.getTarget());
+            if (packedRefs == null || packedRefs.getVersion() <= snap.getVersion() + 1) {
+                snapshot = snap;
+                packed = packedRefs;
+            } else if (attempt >= 100) {
+                throw new GitletException("Could not read a consistent set of refs.");
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reads the current snapshot from .gitlet/refs, or builds one from the
+     * per-ref files of an older repository.
+     */
+    private RefSnapshot readSnapshot() {
+        if (refsFile.isFile()) {
+            return readObject(refsFile, RefSnapshot.class);
+        }
+        if (!legacyHeadCommitFile.isFile()) { // a repository being initialized
+            return new RefSnapshot(0, null, null, new HashMap<>());
+        }
+        HashMap<String, String> branches = new HashMap<>();
+        for (String name : plainFilenamesIn(legacyBranchesDir)) {
+            if (!name.startsWith(".")) {
+                File branchFile = join(legacyBranchesDir, name);
+                branches.put(name, readObject(branchFile, Branch.class).getFrontCommitHash());
+            }
+        }
+        return new RefSnapshot(0, readContentsAsString(legacyHeadCommitFile),
+                readContentsAsString(legacyHeadBranchFile), branches);
+    }
+
+    /**
+     * Forgets the cached snapshot, so the next read sees what other
+     * processes have written since. Unflushed changes are kept.
+     */
+    void refresh() {
+        snapshot = null;
+        packed = null;
+    }
+
+    /**
+     * Drops every change made since the last flush.
+     */
+    void discardChanges() {
+        changedFronts.clear();
+        expected.clear();
+        headCommitHash = null;
+        headBranchName = null;
+        refresh();
+    }
+
+    /**
+     * Writes every change made since the last flush back to .gitlet as a new
+     * snapshot, waiting up to lockTimeoutMillis for other writers. If another
+     * process has moved any changed branch in the meantime, nothing is written
+     * and a GitletException is thrown. If sync, the new snapshot is forced to
+     * disk. Returns true if a new snapshot was written.
+     */
+    boolean flush(boolean sync, long lockTimeoutMillis) {
+        if (changedFronts.isEmpty() && headCommitHash == null && headBranchName == null) {
+            return false;
+        }
+        refsLock.acquire(lockTimeoutMillis);
+        try {
+            RefSnapshot current = readSnapshot();
+            PackedRefs currentPacked = PackedRefs.open(packedLock.getTarget());
+            for (String name : changedFronts.keySet()) {
+                if (!Objects.equals(frontIn(current, currentPacked, name), expected.get(name))) {
+                    throw new GitletException("Branch " + name
+                            + " was changed by another process; nothing was updated.");
+                }
+            }
+            TreeMap<String, String> loose = new TreeMap<>(current.getBranches());
+            for (Map.Entry<String, String> change : changedFronts.entrySet()) {
+                String name = change.getKey();
+                if (change.getValue() != null
+                        || (currentPacked != null && currentPacked.get(name) != null)) {
+                    loose.put(name, change.getValue());
+                } else {
+                    loose.remove(name);
+                }
+            }
+            RefSnapshot next = new RefSnapshot(current.getVersion() + 1,
+                    headCommitHash != null ? headCommitHash : current.getHeadCommitHash(),
+                    headBranchName != null ? headBranchName : current.getHeadBranchName(),
+                    loose);
+            if (loose.size() > MAX_LOOSE) {
+                pack(next, currentPacked, sync);
+            } else {
+                commitSnapshot(next, currentPacked, sync);
+            }
+            if (current.getVersion() == 0) {
+                deleteLegacyRefs();
+            }
+            changedFronts.clear();
+            expected.clear();
+            headCommitHash = null;
+            headBranchName = null;
+            return true;
+        } finally {
+            refsLock.release();
+            packedLock.release();
+        }
+    }
+
+    /**
+     * Moves every loose branch into the packed refs. Does nothing to changes
+     * that have not been flushed yet.
+     */
+    void pack(boolean sync, long lockTimeoutMillis) {
+        refsLock.acquire(lockTimeoutMillis);
+        try {
+            RefSnapshot current = readSnapshot();
+            pack(current, PackedRefs.open(packedLock.getTarget()), sync);
+        } finally {
+            refsLock.release();
+            packedLock.release();
+        }
+    }
+
+    /**
+     * Packs the refs of snap on top of basePacked and commits the result as
+     * the snapshot following snap. The refs lock must be held.
+     */
+    private void pack(RefSnapshot snap, PackedRefs basePacked, boolean sync) {
+        packedLock.acquire(0);
+        long version = snap.getVersion() + 1;
+        PackedRefs.write(packedLock, version, allIn(snap, basePacked), sync);
+        RefSnapshot next = new RefSnapshot(version, snap.getHeadCommitHash(),
+                snap.getHeadBranchName(), new TreeMap<>());
+        commitSnapshot(next, PackedRefs.open(packedLock.getTarget()), sync);
+    }
+
+    /**
+     * Replaces .gitlet/refs with snap and caches it. The refs lock must be held.
+     */
+    private void commitSnapshot(RefSnapshot snap, PackedRefs packedRefs, boolean sync) {
+        refsLock.commit(sync, serialize(snap));
+        if (sync) {
+            Utils.sync(refsFile.getParentFile());
+        }
+        snapshot = snap;
+        packed = packedRefs;
+    }
+
+    private void deleteLegacyRefs() {
+        if (legacyBranchesDir.isDirectory()) {
+            for (String name : plainFilenamesIn(legacyBranchesDir)) {
+                join(legacyBranchesDir, name).delete();
+            }
+            legacyBranchesDir.delete();
+        }
+        legacyHeadCommitFile.delete();
+        legacyHeadBranchFile.delete();
+    }
+
+}
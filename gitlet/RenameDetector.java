@@ -0,0 +1,170 @@
+package gitlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Pairs files deleted on one side of a merge with files added there, as
+ * renames. Files with identical contents are paired first. The rest are
+ * compared through MinHash sketches of their sets of lines: each sketch keeps
+ * the smallest value of NUM_HASHES hash functions over the file's lines, and
+ * the fraction of positions where two sketches agree estimates how much of
+ * their lines the files share. Sketches are cut into bands, and only files
+ * that agree on a whole band are compared at all, so the work grows with the
+ * number of files rather than with the number of pairs of them.
+ * <p>
+ * Files sharing a fraction s of their lines agree on a band with probability
+ * s^BAND_ROWS, so become candidates with probability
+ * 1 - (1 - s^BAND_ROWS)^bands. With 32 bands of 4 rows that curve crosses
+ * one half near s = 0.38, under MIN_SIMILARITY: a pair at 0.5 is
+ * compared 87% of the time and one at 0.6 99%, while unrelated files that
+ * only share boilerplate (s = 0.2) are compared 5% of the time. Shorter bands
+ * would make nearly every pair of such files a candidate.
+ *
+ * @author Brandon Wong
+ */
+class RenameDetector {
+
+    /** Hash functions per sketch. */
+    private static final int NUM_HASHES = 128;
+    /** Sketch positions per band; two files become candidates if any band matches. */
+    private static final int BAND_ROWS = 4;
+    /** Estimated share of lines two files must have in common to pair them. */
+    private static final double MIN_SIMILARITY = 0.5;
+
+    /**
+     * Returns deleted file name -> added file name for each rename found.
+     * Both maps go from file name to snapshot hash; read returns the content
+     * of a snapshot, and is only called for these files. The pairs compared
+     * are counted on tracer.
+     */
+    static Map<String, String> detect(Map<String, String> deleted, Map<String, String> added,
+                                      Function<String, String> read, Tracer tracer) {
+        TreeMap<String, String> renames = new TreeMap<>();
+        if (deleted.isEmpty() || added.isEmpty()) {
+            return renames;
+        }
+        List<String> delNames = new ArrayList<>(new TreeMap<>(deleted).keySet()),
+                addNames = new ArrayList<>(new TreeMap<>(added).keySet());
+        List<String> delContents = delNames.parallelStream().map(n -> read.apply(deleted.get(n))).toList(),
+                addContents = addNames.parallelStream().map(n -> read.apply(added.get(n))).toList();
+
+        // identical (non-empty) contents first:
+        HashMap<Long, List<Integer>> delByContent = new HashMap<>();
+        for (int d = 0; d < delNames.size(); d++) {
+            if (delContents.get(d).isEmpty()) {
+                continue;
+            }
+            delByContent.computeIfAbsent(Hasher.fastHash(delContents.get(d)), k -> new ArrayList<>()).add(d);
+        }
+        boolean[] delUsed = new boolean[delNames.size()], addUsed = new boolean[addNames.size()];
+        for (int a = 0; a < addNames.size(); a++) {
+            String content = addContents.get(a);
+            for (int d : delByContent.getOrDefault(Hasher.fastHash(content), List.of())) {
+                if (!delUsed[d] && delContents.get(d).equals(content)) {
+                    delUsed[d] = addUsed[a] = true;
+                    renames.put(delNames.get(d), addNames.get(a));
+                    break;
+                }
+            }
+        }
+
+        // then near-duplicates, among files with a band in common:
+        long[][] delSketches = new long[delNames.size()][], addSketches = new long[addNames.size()][];
+        HashMap<Long, List<Integer>> buckets = new HashMap<>();
+        for (int d = 0; d < delNames.size(); d++) {
+            if (!delUsed[d] && !delContents.get(d).isEmpty()) {
+                delSketches[d] = sketch(delContents.get(d));
+                for (int band = 0; band < NUM_HASHES / BAND_ROWS; band++) {
+                    buckets.computeIfAbsent(bandKey(delSketches[d], band), k -> new ArrayList<>()).add(d);
+                }
+            }
+        }
+        List<double[]> pairs = new ArrayList<>(); // {similarity, d, a}
+        for (int a = 0; a < addNames.size(); a++) {
+            if (addUsed[a] || addContents.get(a).isEmpty()) {
+                continue;
+            }
+            addSketches[a] = sketch(addContents.get(a));
+            HashSet<Integer> candidates = new HashSet<>();
+            for (int band = 0; band < NUM_HASHES / BAND_ROWS; band++) {
+                candidates.addAll(buckets.getOrDefault(bandKey(addSketches[a], band), List.of()));
+            }
+            tracer.count(Tracer.RENAME_CANDIDATES, candidates.size());
+            for (int d : candidates) {
+                double similarity = similarity(delSketches[d], addSketches[a]);
+                if (similarity >= MIN_SIMILARITY) {
+                    pairs.add(new double[]{similarity, d, a});
+                }
+            }
+        }
+        // most similar pairs first, each file used at most once:
+        pairs.sort((p, q) -> Double.compare(q[0], p[0]));
+        for (double[] pair : pairs) {
+            int d = (int) pair[1], a = (int) pair[2];
+            if (!delUsed[d] && !addUsed[a]) {
+                delUsed[d] = addUsed[a] = true;
+                renames.put(delNames.get(d), addNames.get(a));
+            }
+        }
+        return renames;
+    }
+
+    // ==================== Sketches: ====================
+
+    /**
+     * Returns the MinHash sketch of the set of lines in content, ignoring
+     * leading and trailing whitespace.
+     */
+    static long[] sketch(String content) {
+        long[] mins = new long[NUM_HASHES];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        for (String line : LineDiff.splitLines(content)) {
+            long lineHash = Hasher.fastHash(line.strip());
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long h = mix(lineHash + (i + 1) * 0x9E3779B97F4A7C15L);
+                if (h < mins[i]) {
+                    mins[i] = h;
+                }
+            }
+        }
+        return mins;
+    }
+
+    /**
+     * Returns the estimated share of lines two sketched files have in common.
+     */
+    static double similarity(long[] a, long[] b) {
+        int same = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                same++;
+            }
+        }
+        return (double) same / NUM_HASHES;
+    }
+
+    private static long bandKey(long[] sketch, int band) {
+        long key = band;
+        for (int i = band * BAND_ROWS; i < (band + 1) * BAND_ROWS; i++) {
+            key = mix(key * 31 + sketch[i]);
+        }
+        return key;
+    }
+
+    /**
+     * SplitMix64's finalizer: spreads the bits of x over the whole word.
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+}
@@ -0,0 +1,66 @@
+package gitlet;
+
+/**
+ * Outcome of cherry-picking or rebasing: replaying commits on top of another.
+ *
+ * @author Brandon Wong
+ */
+public class ReplayResult {
+
+    // ==================== ReplayResult Metadata: ====================
+    private final String commitHash;
+    private final int replayed;
+    private final String conflictedHash;
+    private final boolean fastForward;
+
+    private ReplayResult(String commitHash, int replayed, String conflictedHash, boolean fastForward) {
+        this.commitHash = commitHash;
+        this.replayed = replayed;
+        this.conflictedHash = conflictedHash;
+        this.fastForward = fastForward;
+    }
+
+    static ReplayResult replayed(String commitHash, int replayed, String conflictedHash) {
+        return new ReplayResult(commitHash, replayed, conflictedHash, false);
+    }
+
+    static ReplayResult fastForward(String commitHash) {
+        return new ReplayResult(commitHash, 0, null, true);
+    }
+
+    // ==================== Getters: ====================
+
+    /**
+     * Hash of the commit head points at afterwards.
+     */
+    public String getCommitHash() {
+        return commitHash;
+    }
+
+    /**
+     * Number of commits written on top of the new base.
+     */
+    public int getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * Hash of the commit whose replay conflicted, or null if none did. Its
+     * merged files, conflict markers and all, are left staged.
+     */
+    public String getConflictedHash() {
+        return conflictedHash;
+    }
+
+    public boolean hasConflicts() {
+        return conflictedHash != null;
+    }
+
+    /**
+     * True if the current branch was simply moved to the new base.
+     */
+    public boolean isFastForward() {
+        return fastForward;
+    }
+
+}
@@ -1,84 +1,92 @@
 package gitlet;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.Serializable;
-import java.util.*;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static gitlet.RepoUtils.*;
-import static gitlet.RepoUtils.commitExists;
-import static gitlet.Utils.*;
 
 /**
- * Represents a gitlet repository. Mainly exists to handle command
- * calls from Main and hold information about the head and stage.
+ * Command-line front end of a gitlet repository. Checks the operands of each
+ * command call from Main, delegates the work to a GitletRepository and prints
+ * the results. Errors surface as GitletExceptions for Main to report.
  *
  * @author Brandon Wong
  */
-public class Repository implements Serializable {
-
-    // ==================== File Structure: ====================
-
-    // cwd & .gitlet
-    public static final File CWD = new File(System.getProperty("user.dir"));
-    public static final File GITLET_DIR = join(CWD, ".gitlet");
-    // .gitlet folders
-    public static final File BRANCHES_DIR = join(GITLET_DIR, "branches");
-    public static final File COMMITS_DIR = join(GITLET_DIR, "commits");
-    public static final File SNAPS_DIR = join(GITLET_DIR, "snaps");
-    public static final File STAGING_ADD_DIR = join(GITLET_DIR, "staging", "adds");
-    public static final File STAGING_RM_DIR = join(GITLET_DIR, "staging", "removes");
-    // .gitlet files
-    public static final File HEAD_COMMIT_FILE = join(GITLET_DIR, "HEAD.info");
-    public static final File HEAD_BRANCH_FILE = join(GITLET_DIR, "BRANCH.info");
+public class Repository {
+
+    // ==================== Dispatch: ====================
+
+    /**
+     * Runs the single command in ARGS against REPO.
+     */
+    public static void execute(GitletRepository repo, String[] args) {
+        switch (args[0]) {
+            case "init" -> GitletRepository.validate(false,
+                    "A Gitlet version-control system already exists in the current directory.");
+            case "add" -> add(repo, args);
+            case "commit" -> commit(repo, args);
+            case "rm" -> remove(repo, args);
+            case "log" -> log(repo, args);
+            case "global-log" -> globalLog(repo, args);
+            case "find" -> find(repo, args);
+            case "status" -> status(repo, args);
+            case "diff" -> diff(repo, args);
+            case "checkout" -> checkout(repo, args);
+            case "branch" -> branch(repo, args);
+            case "rm-branch" -> removeBranch(repo, args);
+            case "pack-refs" -> packRefs(repo, args);
+            case "gc" -> gc(repo, args);
+            case "reset" -> reset(repo, args);
+            case "merge" -> merge(repo, args);
+            case "merge-tree" -> mergeTree(repo, args);
+            case "cherry-pick" -> cherryPick(repo, args);
+            case "rebase" -> rebase(repo, args);
+            case "rerere" -> rerere(repo, args);
+            case "batch" -> batch(repo, args);
+            case "config" -> config(repo, args);
+            case "metrics" -> metrics(repo, args);
+            default -> throw new GitletException("No command with that name exists.");
+        }
+    }
 
     // ==================== Command Functions: ====================
 
     /**
-     * Initializes gitlet repository structure and create main branch
-     * with initial commit with message "initial commit" and timestamp
-     * 00:00:00 UTC, Thursday, 1 January 1970.
+     * Initializes gitlet repository structure in the working directory,
+     * optionally with sha256 object ids instead of sha1
      *
-     * @param args - formatted as {"init"}
+     * @param args - formatted as {"init"} or {"init", "--object-format", format}
      */
-    public static void init(String[] args) {
+    public static void init(File cwd, String[] args) {
+        init(cwd, args, new Tracer(false));
+    }
+
+    static void init(File cwd, String[] args, Tracer tracer) {
+        if (args.length == 3 && args[1].equals("--object-format")) {
+            GitletRepository.init(cwd, args[2], tracer);
+            return;
+        }
         verifyOperandLen(args, 1);
-        validate(!GITLET_DIR.exists(),
-                "A Gitlet version-control system already exists in the current directory.");
-        // persistence:
-        GITLET_DIR.mkdir();
-        BRANCHES_DIR.mkdir();
-        COMMITS_DIR.mkdir();
-        SNAPS_DIR.mkdir();
-        STAGING_ADD_DIR.mkdirs();
-        STAGING_RM_DIR.mkdirs();
-        // init commit + main branch
-        String newCommitHash = createNewCommit("initial commit", new HashMap<>());
-        String newBranchName = createNewBranch("main", newCommitHash);
-        // save ^ to head
-        saveHeadCommitHash(newCommitHash);
-        saveHeadBranchName(newBranchName);
+        GitletRepository.init(cwd, Hasher.SHA1, tracer);
     }
 
     /**
-     * Adds given file into the staging area only if it differs from the current
-     * head's version of the file. If file is already staged, the newly added file should
-     * override the old added file.
+     * Stages given files for addition. Each operand is a file name, "." for
+     * every file in the working tree, or a glob pattern such as "*.txt".
      *
-     * @param args - formatted as {"add", fileName}
+     * @param args - formatted as {"add", path, ...}
      */
-    public static void add(String[] args) {
-        verifyOperandLen(args, 2);
-        String fileName = args[1];
-        validate(join(CWD, fileName).exists(), "File does not exist.");
-
-        Commit headCommit = getHeadCommit();
-
-        join(STAGING_RM_DIR, fileName).delete();
-        if (headCommit.contains(fileName) && !headCommit.isContentModded(fileName)) {
-            join(STAGING_ADD_DIR, fileName).delete();
-        } else {
-            stageForAdd(fileName);
-        }
+    public static void add(GitletRepository repo, String[] args) {
+        validateOperands(args.length >= 2);
+        repo.add(Arrays.copyOfRange(args, 1, args.length));
     }
 
     /**
@@ -87,28 +95,9 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"commit", message}
      */
-    public static void commit(String[] args) {
+    public static void commit(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 2);
-        String message = args[1];
-        validate(stagedChangesExist(), "No changes added to the commit.");
-        validate(message.length() > 0, "Please enter a commit message.");
-
-        HashMap<String, String> newSnapShotsMap = getHeadCommit().getSnapShots();
-
-        for (String elem : plainFilenamesIn(STAGING_ADD_DIR)) {
-            // add or overwrite all commit files with staged files
-            String[] elemInfo = moveSnapFromStage(elem);
-            newSnapShotsMap.put(elemInfo[0], elemInfo[1]);
-        }
-        for (String elem : plainFilenamesIn(STAGING_RM_DIR)) {
-            // apply all staged removes
-            newSnapShotsMap.remove(elem);
-            join(STAGING_RM_DIR, elem).delete();
-        }
-
-        // add new commit to head branch
-        String newCommitHash = getHeadBranch().addNewCommitWith(args[1], newSnapShotsMap);
-        saveHeadCommitHash(newCommitHash);
+        repo.commit(args[1]);
     }
 
     /**
@@ -117,17 +106,9 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"rm", fileName}
      */
-    public static void remove(String[] args) {
+    public static void remove(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 2);
-        String fileName = args[1];
-        boolean existsInStaging = join(STAGING_ADD_DIR, fileName).delete();
-        boolean existsInHeadCommit = getHeadCommit().contains(fileName);
-        validate(existsInStaging || existsInHeadCommit, "No reason to remove the file.");
-
-        if (existsInHeadCommit) {
-            stageForRm(fileName);
-            restrictedDelete(join(CWD, fileName));
-        }
+        repo.remove(args[1]);
     }
 
     /**
@@ -135,9 +116,9 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"log"}
      */
-    public static void log(String[] args) {
+    public static void log(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 1);
-        printAllCommits(getHeadCommit());
+        printAllCommits(repo.log());
     }
 
     /**
@@ -145,12 +126,9 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"global-log"}
      */
-    public static void globalLog(String[] args) {
+    public static void globalLog(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 1);
-        for (String elem : plainFilenamesIn(COMMITS_DIR)) {
-            System.out.println(
-                    readObject(join(COMMITS_DIR, elem), Commit.class).toLogString());
-        }
+        printAllCommits(repo.globalLog());
     }
 
     /**
@@ -158,18 +136,11 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"find", commitMessage}
      */
-    public static void find(String[] args) {
+    public static void find(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 2);
-        boolean found = false;
-        String findMessage = args[1];
-        for (String elem : plainFilenamesIn(COMMITS_DIR)) {
-            Commit elemCommit = readObject(join(COMMITS_DIR, elem), Commit.class);
-            if (findMessage.equals(elemCommit.getMessage())) {
-                System.out.println(elemCommit.getCommitHash());
-                found = true;
-            }
+        for (String id : repo.find(args[1])) {
+            System.out.println(id);
         }
-        validate(found, "Found no commit with that message.");
     }
 
     /**
@@ -177,24 +148,51 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as  {"status"}
      */
-    public static void status(String[] args) {
+    public static void status(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 1);
 
-        Commit headCommit = getHeadCommit();
-        List<String> branches = plainFilenamesIn(BRANCHES_DIR),
-                adds = plainFilenamesIn(STAGING_ADD_DIR),
-                removes = plainFilenamesIn(STAGING_RM_DIR),
-                modsNotStaged = getModsNotStaged(headCommit),
-                untracked = getUntrackedFiles(headCommit);
-
-        String headBranchName = getHeadBranchName();
+        Status status = repo.status();
+        List<String> branches = new ArrayList<>(status.getBranches());
+        String headBranchName = status.getCurrentBranch();
         branches.set(branches.indexOf(headBranchName), "*" + headBranchName);
 
         printList("=== Branches ===", branches);
-        printList("=== Staged Files ===", adds);
-        printList("=== Removed Files ===", removes);
-        printList("=== Modifications Not Staged For Commit ===", modsNotStaged);
-        printList("=== Untracked Files ===", untracked);
+        printList("=== Staged Files ===", status.getStagedFiles());
+        printList("=== Removed Files ===", status.getRemovedFiles());
+        printList("=== Modifications Not Staged For Commit ===", status.getModsNotStaged());
+        printList("=== Untracked Files ===", status.getUntrackedFiles());
+    }
+
+    /**
+     * Shows how the working tree (or with --cached, the staging area) differs
+     * from head, or how the second given commit differs from the first: as a
+     * unified patch, or with --stat as a diffstat, or with --name-only as just
+     * the names of the changed files
+     *
+     * @param args - formatted as {"diff", [--cached | commitId, commitId], [--stat | --name-only]}
+     */
+    public static void diff(GitletRepository repo, String[] args) {
+        List<String> operands = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        String format = "";
+        if (!operands.isEmpty() && operands.get(operands.size() - 1).startsWith("--")
+                && !operands.get(operands.size() - 1).equals("--cached")) {
+            format = operands.remove(operands.size() - 1);
+            validateOperands(format.equals("--stat") || format.equals("--name-only"));
+        }
+        List<FileDiff> diffs;
+        if (operands.isEmpty()) {
+            diffs = repo.diff();
+        } else if (operands.size() == 1 && operands.get(0).equals("--cached")) {
+            diffs = repo.diffCached();
+        } else {
+            validateOperands(operands.size() == 2);
+            diffs = repo.diff(operands.get(0), operands.get(1));
+        }
+        switch (format) {
+            case "" -> System.out.print(DiffFormatter.patch(diffs));
+            case "--stat" -> System.out.print(DiffFormatter.stat(diffs));
+            default -> System.out.print(DiffFormatter.nameOnly(diffs));
+        }
     }
 
     /**
@@ -209,26 +207,36 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"checkout", options...}
      */
-    public static void checkout(String[] args) {
+    public static void checkout(GitletRepository repo, String[] args) {
         switch (args.length) {
-            case 3 -> checkoutV1(args); // {"checkout", "--", fileName}
-            case 4 -> checkoutV2(args); // {"checkout", commitId, "--", fileName}
-            case 2 -> checkoutBranch(args); // {"checkout", branchName}
-            default -> printAndExit("Incorrect operands.");
+            case 3 -> { // {"checkout", "--", fileName}
+                validateOperands(args[1].equals("--"));
+                repo.checkoutFile(args[2]);
+            }
+            case 4 -> { // {"checkout", commitId, "--", fileName}
+                validateOperands(args[2].equals("--"));
+                repo.checkoutFile(args[1], args[3]);
+            }
+            case 2 -> repo.checkoutBranch(args[1]); // {"checkout", branchName}
+            default -> validateOperands(false);
         }
     }
 
     /**
      * Creates new branch with given name, points it at curr head,
+     * or lists the branches that contain the given commit
      *
-     * @param args - formatted as {"branch", branchName}
+     * @param args - formatted as {"branch", branchName} or {"branch", "--contains", commitId}
      */
-    public static void branch(String[] args) {
+    public static void branch(GitletRepository repo, String[] args) {
+        if (args.length == 3 && args[1].equals("--contains")) {
+            for (String name : repo.branchesContaining(args[2])) {
+                System.out.println(name);
+            }
+            return;
+        }
         verifyOperandLen(args, 2);
-        String branchName = args[1];
-        validate(!branchExists(branchName), "A branch with that name already exists.");
-
-        createNewBranch(branchName, getHeadCommitHash());
+        repo.branch(args[1]);
     }
 
     /**
@@ -237,14 +245,37 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"rm-branch", branchName}
      */
-    public static void removeBranch(String[] args) {
+    public static void removeBranch(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 2);
-        String branchName = args[1];
-        validate(branchExists(branchName), "A branch with that name does not exist.");
-        validate(!branchName.equals(getHeadBranchName()),
-                "Cannot remove the current branch.");
+        repo.removeBranch(args[1]);
+    }
+
+    /**
+     * Packs all branches into one sorted, binary-searched file
+     *
+     * @param args - formatted as {"pack-refs"}
+     */
+    public static void packRefs(GitletRepository repo, String[] args) {
+        verifyOperandLen(args, 1);
+        repo.packRefs();
+    }
 
-        Utils.join(BRANCHES_DIR, branchName).delete();
+    /**
+     * Deletes unreachable commits and snapshots older than the grace period
+     * (all of them with --now) and reports what was reclaimed
+     *
+     * @param args - formatted as {"gc"} or {"gc", "--now"}
+     */
+    public static void gc(GitletRepository repo, String[] args) {
+        validateOperands(args.length == 1 || (args.length == 2 && args[1].equals("--now")));
+        GcResult result = args.length == 2 ? repo.gc(0) : repo.gc();
+        System.out.println("Removed " + result.getCommitsRemoved() + " commits and "
+                + result.getSnapsRemoved() + " snapshots, reclaiming "
+                + result.getBytesReclaimed() + " bytes.");
+        System.out.println("Kept " + result.getCommitsKept() + " commits and "
+                + result.getSnapsKept() + " snapshots.");
+        System.out.println("Mark: " + result.getMarkMillis() + " ms, sweep: "
+                + result.getSweepMillis() + " ms.");
     }
 
     /**
@@ -255,13 +286,9 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"reset", commitID}
      */
-    public static void reset(String[] args) {
+    public static void reset(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 2);
-        String requestedCommitHash = shortHandHashChecker(args[1]);
-
-        checkoutCommitAt(requestedCommitHash);
-        // Move branch front pointer to new commit
-        getHeadBranch().moveFrontTo(requestedCommitHash);
+        repo.reset(args[1]);
     }
 
     /**
@@ -269,213 +296,218 @@ public class Repository implements Serializable {
      *
      * @param args - formatted as {"merge", branchName}
      */
-    public static void merge(String[] args) {
+    public static void merge(GitletRepository repo, String[] args) {
         verifyOperandLen(args, 2);
-        validate(getUntrackedFiles(getHeadCommit()).size() == 0,
-                "There is an untracked file in the way; delete it, or add and commit it first.");
-        validate(!stagedChangesExist(), "You have uncommitted changes.");
-
-        // validate requested branch can be merged:
-        String otherBranchName = args[1];
-        String currBranchName = getHeadBranchName();
-        validate(branchExists(otherBranchName), "A branch with that name does not exist.");
-        validate(!otherBranchName.equals(currBranchName),
-                "Cannot merge a branch with itself.");
-
-        // head, given, and split commits + validate them:
-        Commit head = getHeadCommit(),
-                other = getBranchFromName(otherBranchName).getFrontCommit(),
-                split = getSplitCommit(otherBranchName, currBranchName); // takes N time
-        validate(!split.equals(other), "Given branch is an ancestor of the current branch.");
-        if (split.equals(head)) {
-            checkoutCommitAt(other.getCommitHash());
-            printAndExit("Current branch fast-forwarded.");
-        }
-
-
-        // map of files for head, given, and split commits:
-        HashMap<String, String> headFiles = head.getSnapShots(),
-                otherFiles = other.getSnapShots(),
-                splitFiles = split.getSnapShots();
-        boolean conflictExists = false;
-
-        // iterate through split commit's files:
-        for (String fileName : splitFiles.keySet()) {
-            if (isSame(fileName, splitFiles, headFiles)) {
-                if (!otherFiles.containsKey(fileName)) {
-                    // remove & untrack
-                    headFiles.remove(fileName);
-                    restrictedDelete(join(CWD, fileName));
-                } else if (!isSame(fileName, otherFiles, headFiles)) {
-                    // checkout from other & stage
-                    checkoutFileAt(fileName, other);
-                    stageForAdd(fileName);
-                }
-            } else if (!isSame(fileName, splitFiles, otherFiles)
-                    && !isSame(fileName, headFiles, otherFiles)) {
-                // merge conflict
-                String mergedContent = mergeFiles(fileName, head, other);
-                writeContents(join(CWD, fileName), mergedContent);
-                conflictExists = true;
-            }
+        MergeResult result = repo.merge(args[1]);
+        for (String fileName : result.getReused()) {
+            System.out.println("Resolved '" + fileName + "' using previous resolution.");
         }
-
-        // iterate through given commit's files:
-        for (String fileName : otherFiles.keySet()) {
-            if (!splitFiles.containsKey(fileName) && !headFiles.containsKey(fileName)) {
-                // checkout from other & stage
-                checkoutFileAt(fileName, other);
-                stageForAdd(fileName);
-            }
-        }
-
-        // create new commit with content pointing to both branches
-        // (should remain on same head branch)
-        String mergeMessage = "Merged " + otherBranchName + " into " + currBranchName + ".";
-        commit(new String[]{"commit", mergeMessage});
-        Commit newlyCreatedCommit = getHeadCommit();
-        newlyCreatedCommit.setMergedParentHash(other.getCommitHash());
-        newlyCreatedCommit.save();
-
-        if (conflictExists) {
+        if (result.isFastForward()) {
+            System.out.println("Current branch fast-forwarded.");
+        } else if (result.hasConflicts()) {
             System.out.println("Encountered a merge conflict.");
         }
-        System.exit(0);
     }
 
-
-    // ==================== Checkout Functions: ====================
-
     /**
-     * @param args - formatted as {"checkout", "--", fileName}
+     * Merges two branches or commits without a working tree, printing whether
+     * they merge cleanly, the resulting commit if there is one (written only
+     * with --write, which also points the given branch at it), and the files
+     * that conflict
+     *
+     * @param args - formatted as {"merge-tree", ours, theirs, ["--write", branchName]}
      */
-    private static void checkoutV1(String[] args) {
-        validate(args[1].equals("--"), "Incorrect operands.");
-        checkoutFileAt(args[2], getHeadCommit());
+    public static void mergeTree(GitletRepository repo, String[] args) {
+        validateOperands(args.length == 3 || (args.length == 5 && args[3].equals("--write")));
+        MergeTreeResult result = repo.mergeTree(args[1], args[2], args.length == 5 ? args[4] : null);
+        System.out.println(result.isClean() ? "Merged cleanly." : "Encountered a merge conflict.");
+        if (result.getCommitHash() != null) {
+            System.out.println(result.getCommitHash());
+        }
+        for (String fileName : result.getConflicts()) {
+            System.out.println(fileName);
+        }
     }
 
     /**
-     * @param args - formatted as {"checkout", commitId, "--", fileName}
+     * Applies the changes made by the given commit on top of head as a new
+     * commit. On a conflict nothing is committed; the merged files, with
+     * conflict markers, are left in the working tree and staged
+     *
+     * @param args - formatted as {"cherry-pick", commitId}
      */
-    private static void checkoutV2(String[] args) {
-        validate(args[2].equals("--"), "Incorrect operands.");
-        String requestedCommitHash = shortHandHashChecker(args[1]);
-
-        Commit requestedCommit = getCommitFromHash(requestedCommitHash);
-        checkoutFileAt(args[3], requestedCommit);
+    public static void cherryPick(GitletRepository repo, String[] args) {
+        verifyOperandLen(args, 2);
+        printReplay(repo.cherryPick(args[1]));
     }
 
     /**
-     * @param args - formatted as {"checkout", branchName}
+     * Replays the current branch's own commits on top of the given branch or
+     * commit, stopping at the first that conflicts (whose merged files are
+     * left staged, as with cherry-pick)
+     *
+     * @param args - formatted as {"rebase", branchName}
      */
-    private static void checkoutBranch(String[] args) {
-        String branchName = args[1];
-        validate(branchExists(branchName), "No such branch exists.");
-        validate(!getHeadBranchName().equals(branchName),
-                "No need to checkout the current branch.");
-
-        String reqBranchFront = getBranchFromName(branchName).getFrontCommitHash();
-
-        checkoutCommitAt(reqBranchFront);
-        saveHeadBranchName(branchName); // move head to curr branch
+    public static void rebase(GitletRepository repo, String[] args) {
+        verifyOperandLen(args, 2);
+        printReplay(repo.rebase(args[1]));
     }
 
-    // Checkout Helpers:
-
     /**
-     * @param fileName - name of file to checkout
-     * @param commit   - commit to checkout from
+     * Lists recorded conflict resolutions (kept when rerere.enabled is true),
+     * forgets the one with the given id, or prunes stale ones
+     *
+     * @param args - formatted as {"rerere"}, {"rerere", "forget", id} or {"rerere", "gc"}
      */
-    private static void checkoutFileAt(String fileName, Commit commit) {
-        if (!commit.contains(fileName)) {
-            printAndExit("File does not exist in that commit.");
+    public static void rerere(GitletRepository repo, String[] args) {
+        if (args.length == 1) {
+            for (String line : repo.rerereStatus()) {
+                System.out.println(line);
+            }
+        } else if (args.length == 3 && args[1].equals("forget")) {
+            repo.rerereForget(args[2]);
         } else {
-            writeContents(join(CWD, fileName), commit.getContentOfFile(fileName));
+            validateOperands(args.length == 2 && args[1].equals("gc"));
+            System.out.println("Pruned " + repo.rerereGc() + " resolutions.");
+        }
+    }
+
+    private static void printReplay(ReplayResult result) {
+        if (result.isFastForward()) {
+            System.out.println("Current branch fast-forwarded.");
+        } else if (result.hasConflicts()) {
+            System.out.println("Encountered a merge conflict.");
         }
     }
 
     /**
-     * Should delete all files in cwd that are in curr branch
-     * but not in checked-out branch are del
-     * Should clear staging area
-     * Checkout each file from the requested commit.
+     * Runs newline-delimited commands (one per line, without the leading
+     * "gitlet", operands containing spaces in double quotes) read from the
+     * given file or stdin, all in this process. Refs and the index are only
+     * written at the end and on each "checkpoint" line. A failing command
+     * prints its error and the batch moves on to the next line.
      *
-     * @param hash - hash of requested commit
+     * @param args - formatted as {"batch"} or {"batch", scriptFile}
      */
-    private static void checkoutCommitAt(String hash) {
-        validate(getUntrackedFiles(getHeadCommit()).size() == 0,
-                "There is an untracked file in the way; delete it, or add and commit it first.");
-
-        Commit requestedCommit = readObject(Utils.join(COMMITS_DIR, hash), Commit.class);
-        Commit headCommit = getHeadCommit();
-        List<String> cwdFiles = plainFilenamesIn(CWD),
-                stagedAdds = plainFilenamesIn(STAGING_ADD_DIR),
-                stagedRms = plainFilenamesIn(STAGING_RM_DIR);
-
-        // delete all files in cwd that are in curr branch but
-        // not in branch to be checked-out are del:
-        for (String elem : cwdFiles) {
-            if (headCommit.contains(elem) && !requestedCommit.contains(elem)) {
-                restrictedDelete(join(CWD, elem));
+    public static void batch(GitletRepository repo, String[] args) {
+        validateOperands(args.length == 1 || args.length == 2);
+        repo.setAutoFlush(false);
+        try (BufferedReader in = new BufferedReader(openScript(args))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] cmd = splitCommandLine(line);
+                if (cmd.length == 0 || cmd[0].startsWith("#")) {
+                    continue;
+                }
+                try {
+                    repo.getTracer().inSpan(line.strip(), () -> {
+                        switch (cmd[0]) {
+                            case "checkpoint" -> repo.flush();
+                            case "batch" -> validateOperands(false);
+                            default -> execute(repo, cmd);
+                        }
+                    });
+                } catch (GitletException e) {
+                    System.out.println(e.getMessage());
+                }
             }
+        } catch (IOException excp) {
+            throw new GitletException("Could not read batch script.");
+        } finally {
+            repo.flush();
+            repo.setAutoFlush(true);
         }
-        // clear staging:
-        for (String elem : stagedAdds) {
-            join(STAGING_ADD_DIR, elem).delete();
-            restrictedDelete(join(CWD, elem));
-        }
-        for (String elem : stagedRms) {
-            join(STAGING_RM_DIR, elem).delete();
-        }
-        // Takes all files in front commit of given Branch, puts in cwd (overwriting):
-        for (String elem : requestedCommit.getSnapShots().keySet()) {
-            checkoutFileAt(elem, requestedCommit);
-        }
-
-        // move head to this commit
-        saveHeadCommitHash(hash);
     }
 
-    // ==================== Helper Functions: ====================
-
     /**
-     * Verifies if length of args is equal to expectedNumArgs
+     * Prints the value of a config key, or sets it. Gitlet reads
+     * core.durability (none, objects or full) and core.lockTimeout (ms).
+     *
+     * @param args - formatted as {"config", key} or {"config", key, value}
      */
-    private static void verifyOperandLen(String[] args, int expNumArgs) {
-        if (args.length != expNumArgs) {
-            printAndExit("Incorrect operands.");
+    public static void config(GitletRepository repo, String[] args) {
+        validateOperands(args.length == 2 || args.length == 3);
+        if (args.length == 3) {
+            repo.setConfig(args[1], args[2]);
+        } else {
+            String value = repo.getConfig(args[1]);
+            GitletRepository.validate(value != null, "No such config key is set.");
+            System.out.println(value);
         }
     }
 
-    // ==================== Error Handling: ====================
-
-    private static void validate(boolean condition, String errorMessage) {
-        if (!condition) {
-            printAndExit(errorMessage);
+    /**
+     * Prints the latency of each command recorded with metrics.enabled set,
+     * and the size of the repository, or writes them to a file in the
+     * Prometheus text format (atomically, for a node exporter to collect).
+     *
+     * @param args - formatted as {"metrics"} or {"metrics", "--prometheus", file}
+     */
+    public static void metrics(GitletRepository repo, String[] args) {
+        validateOperands(args.length == 1 || (args.length == 3 && args[1].equals("--prometheus")));
+        MetricsReport report = repo.metrics();
+        if (args.length == 1) {
+            System.out.print(report.toText());
+        } else {
+            File file = new File(args[2]).getAbsoluteFile();
+            GitletRepository.validate(file.getParentFile().isDirectory(), "Directory does not exist.");
+            Utils.writeContentsAtomically(file, false, report.toPrometheus());
         }
     }
 
-    private static void printAndExit(String message) {
-        System.out.println(message);
-        System.exit(0);
+    // ==================== Helper Functions: ====================
+
+    private static Reader openScript(String[] args) throws IOException {
+        if (args.length == 1) {
+            return new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        }
+        File script = new File(args[1]);
+        GitletRepository.validate(script.isFile(), "Batch script does not exist.");
+        return Files.newBufferedReader(script.toPath(), StandardCharsets.UTF_8);
     }
 
     /**
-     * If the requestedCommitHash is shorter than 40 char,
-     * it checks via the shorthand method, otherwise, it
-     * normally checks if a commit with that id exists.
+     * Splits LINE on whitespace, keeping double-quoted operands (which may
+     * contain \" escapes) together.
      */
-    public static String shortHandHashChecker(String requestedCommitHash) {
-        int reqHashLen = requestedCommitHash.length();
-        if (reqHashLen < 40) {
-            for (String elem : plainFilenamesIn(COMMITS_DIR)) {
-                if (elem.regionMatches(0, requestedCommitHash, 0, reqHashLen)) {
-                    return elem;
+    static String[] splitCommandLine(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder curr = new StringBuilder();
+        boolean inQuotes = false, inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes && c == '\\' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                curr.append('"');
+                i++;
+            } else if (c == '"') {
+                inQuotes = !inQuotes;
+                inToken = true;
+            } else if (Character.isWhitespace(c) && !inQuotes) {
+                if (inToken) {
+                    tokens.add(curr.toString());
+                    curr.setLength(0);
+                    inToken = false;
                 }
+            } else {
+                curr.append(c);
+                inToken = true;
             }
         }
-        validate(commitExists(requestedCommitHash), "No commit with that id exists.");
-        return requestedCommitHash;
+        if (inToken) {
+            tokens.add(curr.toString());
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Verifies if length of args is equal to expectedNumArgs
+     */
+    private static void verifyOperandLen(String[] args, int expNumArgs) {
+        validateOperands(args.length == expNumArgs);
+    }
+
+    private static void validateOperands(boolean condition) {
+        GitletRepository.validate(condition, "Incorrect operands.");
     }
 
 }
@@ -0,0 +1,275 @@
+package gitlet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+import static gitlet.Utils.*;
+
+/**
+ * Recorded conflict resolutions, reused when the same conflict comes up
+ * again (what git calls rerere). Each conflict is identified by a hash of
+ * just its conflict blocks, with the two sides of each block in sorted order,
+ * so it matches whichever branch is merged into which and wherever the
+ * blocks sit in the file. Entries live in .gitlet/rr-cache/<id>/: preimage
+ * is the file as first written with conflict markers, postimage the version
+ * later committed in its place.
+ * <p>
+ * A conflicted file is remembered as pending until the next commit that
+ * includes it without conflict markers, which becomes its postimage. When a
+ * known conflict comes up again, the change from preimage to postimage is
+ * merged onto the new conflicted file, so lines around the conflict may have
+ * moved on in the meantime. Both files have the two sides of each conflict
+ * block put in the order conflictId sorts them first, so a resolution
+ * recorded merging one way round also applies merging the other way.
+ *
+ * @author Brandon Wong
+ */
+class ResolutionCache {
+
+    /** Days an unresolved entry is kept by gc. */
+    private static final long UNRESOLVED_DAYS = 15;
+    /** Days a resolution is kept by gc after it was last recorded or used. */
+    private static final long RESOLVED_DAYS = 60;
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    /** Shortest id prefix forget accepts, so a short typo cannot match many entries. */
+    static final int MIN_ID_PREFIX = 4;
+
+    // ==================== ResolutionCache Metadata: ====================
+    private final File cacheDir;
+    /** File name -> id of its conflict, for conflicts not committed yet. */
+    private final File pendingFile;
+
+    ResolutionCache(File gitletDir) {
+        this.cacheDir = join(gitletDir, "rr-cache");
+        this.pendingFile = join(cacheDir, "pending");
+    }
+
+    // ==================== Recording: ====================
+
+    /**
+     * Remembers that fileName was written with the given conflicted content.
+     */
+    void recordConflict(String fileName, String conflicted) {
+        String id = conflictId(conflicted);
+        if (id == null) {
+            return;
+        }
+        File entry = join(cacheDir, id);
+        entry.mkdirs();
+        if (!join(entry, "preimage").isFile()) {
+            writeContentsAtomically(join(entry, "preimage"), false, conflicted);
+        }
+        TreeMap<String, String> pending = loadPending();
+        pending.put(fileName, id);
+        savePending(pending);
+    }
+
+    /**
+     * Called with the content of each file a commit includes: records it as
+     * the resolution of fileName's pending conflict if it has no conflict
+     * markers left, or forgets the pending conflict if content is null (the
+     * file was removed).
+     */
+    void recordCommitted(String fileName, String content) {
+        TreeMap<String, String> pending = loadPending();
+        String id = pending.get(fileName);
+        if (id == null || (content != null && conflictId(content) != null)) {
+            return;
+        }
+        if (content != null && join(cacheDir, id).isDirectory()) {
+            writeContentsAtomically(join(cacheDir, id, "postimage"), false, content);
+        }
+        pending.remove(fileName);
+        savePending(pending);
+    }
+
+    /**
+     * Returns the names of the files with conflicts not yet committed.
+     */
+    List<String> pendingFiles() {
+        return new ArrayList<>(loadPending().keySet());
+    }
+
+    // ==================== Reuse: ====================
+
+    /**
+     * Returns conflicted with a recorded resolution of the same conflict
+     * applied, or null if there is none or it does not apply cleanly. If
+     * used, the result is going into the working tree or a commit, so the
+     * resolution counts as used for gc; a read-only merge leaves it alone.
+     */
+    String reuse(String conflicted, boolean used) {
+        String id = conflictId(conflicted);
+        if (id == null) {
+            return null;
+        }
+        File preimage = join(cacheDir, id, "preimage"), postimage = join(cacheDir, id, "postimage");
+        if (!preimage.isFile() || !postimage.isFile()) {
+            return null;
+        }
+        LineMerge merged = LineMerge.merge(sortSides(readContentsAsString(preimage)), sortSides(conflicted),
+                readContentsAsString(postimage));
+        if (merged.hasConflicts()) {
+            return null;
+        }
+        if (used) {
+            postimage.setLastModified(System.currentTimeMillis());
+        }
+        return merged.getContent();
+    }
+
+    // ==================== Inspecting and Pruning: ====================
+
+    /**
+     * Returns one "<id> resolved" or "<id> unresolved" line per entry, in id
+     * order.
+     */
+    List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (String id : entryIds()) {
+            lines.add(id + (join(cacheDir, id, "postimage").isFile() ? " resolved" : " unresolved"));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the ids of the entries that start with prefix, in id order.
+     */
+    List<String> idsStartingWith(String prefix) {
+        List<String> ids = entryIds();
+        ids.removeIf(id -> !id.startsWith(prefix));
+        return ids;
+    }
+
+    /**
+     * Deletes the entry with the given id.
+     */
+    void forget(String id) {
+        deleteEntry(id);
+    }
+
+    /**
+     * Deletes unresolved entries older than UNRESOLVED_DAYS and resolutions
+     * neither recorded nor used in RESOLVED_DAYS. Returns how many.
+     */
+    int prune(long nowMillis) {
+        int count = 0;
+        for (String id : entryIds()) {
+            File postimage = join(cacheDir, id, "postimage");
+            long age = nowMillis - (postimage.isFile() ? postimage
+                    : join(cacheDir, id, "preimage")).lastModified();
+            if (age > (postimage.isFile() ? RESOLVED_DAYS : UNRESOLVED_DAYS) * MILLIS_PER_DAY) {
+                deleteEntry(id);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // ==================== Conflict Ids: ====================
+
+    /**
+     * Returns the id of the conflict blocks in content, or null if it has
+     * none.
+     */
+    static String conflictId(String content) {
+        List<Object> parts = new ArrayList<>();
+        StringBuilder ours = null, theirs = null;
+        for (String line : LineDiff.splitLines(content.replace("\r\n", "\n"))) {
+            if (line.startsWith("<<<<<<<")) {
+                ours = new StringBuilder();
+            } else if (ours != null && theirs == null && line.startsWith("=======")) {
+                theirs = new StringBuilder();
+            } else if (theirs != null && line.startsWith(">>>>>>>")) {
+                String a = ours.toString(), b = theirs.toString();
+                parts.add((a.compareTo(b) <= 0 ? a : b) + "\0");
+                parts.add((a.compareTo(b) <= 0 ? b : a) + "\0");
+                ours = theirs = null;
+            } else if (theirs != null) {
+                theirs.append(line);
+            } else if (ours != null) {
+                ours.append(line);
+            }
+        }
+        return parts.isEmpty() ? null : sha1(parts);
+    }
+
+    /**
+     * Returns content with the two sides of each conflict block swapped
+     * where needed to put them in the order conflictId sorts them. Marker
+     * lines stay where they are.
+     */
+    private static String sortSides(String content) {
+        StringBuilder out = new StringBuilder();
+        StringBuilder ours = null, theirs = null;
+        String separator = null;
+        for (String line : LineDiff.splitLines(content)) {
+            if (line.startsWith("<<<<<<<")) {
+                out.append(line);
+                ours = new StringBuilder();
+            } else if (ours != null && theirs == null && line.startsWith("=======")) {
+                separator = line;
+                theirs = new StringBuilder();
+            } else if (theirs != null && line.startsWith(">>>>>>>")) {
+                String a = ours.toString(), b = theirs.toString();
+                boolean inOrder = a.replace("\r\n", "\n").compareTo(b.replace("\r\n", "\n")) <= 0;
+                out.append(inOrder ? a : b).append(separator).append(inOrder ? b : a).append(line);
+                ours = theirs = null;
+            } else if (theirs != null) {
+                theirs.append(line);
+            } else if (ours != null) {
+                ours.append(line);
+            } else {
+                out.append(line);
+            }
+        }
+        // an unfinished block is copied as it was:
+        if (ours != null) {
+            out.append(ours);
+            if (theirs != null) {
+                out.append(separator).append(theirs);
+            }
+        }
+        return out.toString();
+    }
+
+    // ==================== Helper Functions: ====================
+
+    private List<String> entryIds() {
+        List<String> ids = new ArrayList<>();
+        String[] names = cacheDir.list();
+        if (names != null) {
+            for (String name : names) {
+                if (join(cacheDir, name).isDirectory()) {
+                    ids.add(name);
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private void deleteEntry(String id) {
+        File entry = join(cacheDir, id);
+        join(entry, "preimage").delete();
+        join(entry, "postimage").delete();
+        entry.delete();
+        TreeMap<String, String> pending = loadPending();
+        if (pending.values().removeIf(id::equals)) {
+            savePending(pending);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TreeMap<String, String> loadPending() {
+        return pendingFile.isFile() ? readObject(pendingFile, TreeMap.class) : new TreeMap<>();
+    }
+
+    private void savePending(TreeMap<String, String> pending) {
+        cacheDir.mkdirs();
+        writeObjectAtomically(pendingFile, pending, false);
+    }
+
+}
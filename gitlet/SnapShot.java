@@ -1,6 +1,5 @@
 package gitlet;
 
-import java.io.File;
 import java.io.Serializable;
 
 /**
@@ -28,6 +27,16 @@ public class SnapShot implements Serializable {
         this.hash = Utils.sha1(name, content);
     }
 
+    /**
+     * Like the constructor above, with the id computed by hasher.
+     */
+    public SnapShot(String name, String content, int version, Hasher hasher) {
+        this.name = name;
+        this.content = content;
+        this.version = version;
+        this.hash = hasher.hash(name, content);
+    }
+
     // ==================== Getters and Setters: ====================
 
     public String getName() {
@@ -42,11 +51,4 @@ public class SnapShot implements Serializable {
         return hash;
     }
 
-    // ==================== Misc Methods: ====================
-
-    public void save() {
-        File thisSnapFile = Utils.join(Repository.SNAPS_DIR, hash);
-        Utils.writeObject(thisSnapFile, this);
-    }
-
 }
@@ -0,0 +1,110 @@
+package gitlet;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Represents the index of a gitlet repository: which files are staged for
+ * addition (with the hash of the snapshot saved for them) and which are staged
+ * for removal. Saved as a single object so membership checks never have to list
+ * a directory.
+ *
+ * @author Brandon Wong
+ */
+public class StagingArea implements Serializable {
+
+    // ==================== StagingArea Metadata: ====================
+    private final TreeMap<String, String> adds = new TreeMap<>();
+    private final TreeSet<String> removes = new TreeSet<>();
+
+    // ==================== Getters: ====================
+
+    /**
+     * File name -> hash of its staged snapshot, in lexicographic order.
+     */
+    public SortedMap<String, String> getAdds() {
+        return adds;
+    }
+
+    public SortedSet<String> getRemoves() {
+        return removes;
+    }
+
+    public String getStagedHash(String fileName) {
+        return adds.get(fileName);
+    }
+
+    public boolean isStaged(String fileName) {
+        return adds.containsKey(fileName) || removes.contains(fileName);
+    }
+
+    public boolean isEmpty() {
+        return adds.isEmpty() && removes.isEmpty();
+    }
+
+    // ==================== Modifiers: ====================
+
+    void stageAdd(String fileName, String hash) {
+        removes.remove(fileName);
+        adds.put(fileName, hash);
+    }
+
+    void stageRemove(String fileName) {
+        adds.remove(fileName);
+        removes.add(fileName);
+    }
+
+    /**
+     * Drops fileName from the staged additions. Returns true if it was staged.
+     */
+    boolean unstageAdd(String fileName) {
+        return adds.remove(fileName) != null;
+    }
+
+    /**
+     * Drops fileName from the staged removals. Returns true if it was staged.
+     */
+    boolean unstageRemove(String fileName) {
+        return removes.remove(fileName);
+    }
+
+    /**
+     * Drops the entries a commit with the given snapshots already has:
+     * additions of the version it tracks and removals of files it does not
+     * track. Staging never leaves such entries, so they can only be left over
+     * from a commit whose index was not written.
+     */
+    void dropCommitted(Map<String, String> committed) {
+        adds.entrySet().removeIf(add -> add.getValue().equals(committed.get(add.getKey())));
+        removes.removeIf(fileName -> !committed.containsKey(fileName));
+    }
+
+    /**
+     * Removes every entry and returns the names that were staged for addition.
+     */
+    Set<String> clear() {
+        Set<String> staged = new TreeSet<>(adds.keySet());
+        adds.clear();
+        removes.clear();
+        return staged;
+    }
+
+    // ==================== Misc Methods: ====================
+
+    /**
+     * Reads the index saved in indexFile, or returns an empty one if there is none.
+     */
+    static StagingArea load(File indexFile) {
+        if (!indexFile.isFile()) {
+            return new StagingArea();
+        }
+        return Utils.readObject(indexFile, StagingArea.class);
+    }
+
+}
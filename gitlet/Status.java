@@ -0,0 +1,64 @@
+package gitlet;
+
+import java.util.List;
+
+/**
+ * Immutable result of a status query: what branches exist, which one is
+ * current, and which files are staged, modified or untracked.
+ *
+ * @author Brandon Wong
+ */
+public class Status {
+
+    // ==================== Status Metadata: ====================
+    private final String currentBranch;
+    private final List<String> branches;
+    private final List<String> stagedFiles;
+    private final List<String> removedFiles;
+    private final List<String> modsNotStaged;
+    private final List<String> untrackedFiles;
+
+    Status(String currentBranch, List<String> branches,
+           List<String> stagedFiles, List<String> removedFiles,
+           List<String> modsNotStaged, List<String> untrackedFiles) {
+        this.currentBranch = currentBranch;
+        this.branches = List.copyOf(branches);
+        this.stagedFiles = List.copyOf(stagedFiles);
+        this.removedFiles = List.copyOf(removedFiles);
+        this.modsNotStaged = List.copyOf(modsNotStaged);
+        this.untrackedFiles = List.copyOf(untrackedFiles);
+    }
+
+    // ==================== Getters: ====================
+
+    public String getCurrentBranch() {
+        return currentBranch;
+    }
+
+    /**
+     * All branch names in lexicographic order.
+     */
+    public List<String> getBranches() {
+        return branches;
+    }
+
+    public List<String> getStagedFiles() {
+        return stagedFiles;
+    }
+
+    public List<String> getRemovedFiles() {
+        return removedFiles;
+    }
+
+    /**
+     * Tracked files changed in the working tree, tagged (modified)/(deleted).
+     */
+    public List<String> getModsNotStaged() {
+        return modsNotStaged;
+    }
+
+    public List<String> getUntrackedFiles() {
+        return untrackedFiles;
+    }
+
+}
@@ -0,0 +1,359 @@
+package gitlet;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Records where a command spends its time, for --trace: nested timed spans
+ * for its phases (each run inside one with inSpan) and counters
+ * of the I/O it does. Each span also records how much every counter grew
+ * while it was open, work done for it on other threads included. The trace
+ * is rendered as JSON (a tree of spans) or in Chrome's trace event format,
+ * for chrome://tracing or Perfetto.
+ * <p>
+ * A disabled tracer, which every repository has unless tracing was asked
+ * for, records nothing and hands out one shared no-op span, so spans and
+ * counts cost a field read when tracing is off. Either way it carries the
+ * FlightEvents it was made with, shared with other tracers, so the same
+ * instrumented places feed JFR.
+ *
+ * @author Brandon Wong
+ */
+class Tracer {
+
+    // ==================== Counters: ====================
+    /** Commits and snapshots read from the object store. */
+    static final String OBJECTS_READ = "objectsRead";
+    /** Commits and snapshots written to the object store. */
+    static final String OBJECTS_WRITTEN = "objectsWritten";
+    /** Bytes of objects, the index and working files read. */
+    static final String BYTES_READ = "bytesRead";
+    /** Bytes of objects and working files written. */
+    static final String BYTES_WRITTEN = "bytesWritten";
+    /** Existence checks of objects and working files. */
+    static final String FILES_STATED = "filesStated";
+    /** Directory listings of the working tree and object folders. */
+    static final String DIRS_LISTED = "dirsListed";
+    /** Pairs of files rename detection compared for similarity. */
+    static final String RENAME_CANDIDATES = "renameCandidates";
+
+    // ==================== Formats: ====================
+    static final String JSON = "json";
+    static final String CHROME = "chrome";
+
+    // ==================== Tracer Metadata: ====================
+    private final boolean enabled;
+    /** JFR events, recorded whether or not this tracer is enabled. */
+    private final FlightEvents flightEvents;
+    private final long originNanos = System.nanoTime();
+    private final Span disabledSpan = new Span(null, null);
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    /** Spans with no open parent, in the order they were opened. */
+    private final List<Span> roots = new ArrayList<>();
+    /** Innermost open span of each thread. */
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+    /** JVM uptime when this tracer was made, or -1 if disabled. */
+    private final long startupMillis;
+
+    /**
+     * Makes a tracer that records no JFR events.
+     */
+    Tracer(boolean enabled) {
+        this(enabled, new FlightEvents(false));
+    }
+
+    Tracer(boolean enabled, FlightEvents flightEvents) {
+        this.enabled = enabled;
+        this.flightEvents = flightEvents;
+        this.startupMillis = enabled ? ManagementFactory.getRuntimeMXBean().getUptime() : -1;
+    }
+
+    /**
+     * Throws a GitletException unless format is json or chrome.
+     */
+    static String checkFormat(String format) {
+        if (!format.equals(JSON) && !format.equals(CHROME)) {
+            throw new GitletException("Invalid trace format: " + format);
+        }
+        return format;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    FlightEvents getFlightEvents() {
+        return flightEvents;
+    }
+
+    // ==================== Recording: ====================
+
+    /**
+     * Opens a span named name inside this thread's current span. Close it
+     * when the phase ends.
+     */
+    private Span span(String name) {
+        if (!enabled) {
+            return disabledSpan;
+        }
+        Span parent = current.get();
+        Span span = new Span(name, parent);
+        if (parent != null) {
+            synchronized (parent.children) {
+                parent.children.add(span);
+            }
+        } else {
+            synchronized (roots) {
+                roots.add(span);
+            }
+        }
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * Runs op inside a span named name and returns its result.
+     */
+    <T> T inSpan(String name, Supplier<T> op) {
+        Span span = span(name);
+        try {
+            return op.get();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Runs op inside a span named name.
+     */
+    void inSpan(String name, Runnable op) {
+        Span span = span(name);
+        try {
+            op.run();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Adds n to the named counter.
+     */
+    void count(String counter, long n) {
+        if (enabled) {
+            counters.computeIfAbsent(counter, k -> new LongAdder()).add(n);
+        }
+    }
+
+    /**
+     * Counts reading file: one more of counter (null for none) and its
+     * length in bytes read.
+     */
+    void countRead(String counter, File file) {
+        if (enabled) {
+            if (counter != null) {
+                count(counter, 1);
+            }
+            count(BYTES_READ, file.length());
+        }
+    }
+
+    /**
+     * Counts writing file: one more of counter (null for none) and its
+     * length in bytes written.
+     */
+    void countWrite(String counter, File file) {
+        if (enabled) {
+            if (counter != null) {
+                count(counter, 1);
+            }
+            count(BYTES_WRITTEN, file.length());
+        }
+    }
+
+    /**
+     * Returns the value of the named counter.
+     */
+    long get(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Returns every counter that is not zero, by name.
+     */
+    TreeMap<String, Long> getCounters() {
+        TreeMap<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            if (counter.getValue().sum() != 0) {
+                values.put(counter.getKey(), counter.getValue().sum());
+            }
+        }
+        return values;
+    }
+
+    // ==================== Output: ====================
+
+    /**
+     * Returns the trace in the given format, json or chrome.
+     */
+    String render(String format) {
+        return format.equals(CHROME) ? toChromeTrace() : toJson();
+    }
+
+    /**
+     * Returns {"startupMillis", "durationMicros", "counters", "spans"}, each
+     * span {"name", "thread", "startMicros", "durationMicros", "counters",
+     * "children"}, times relative to when the tracer was made.
+     */
+    String toJson() {
+        StringBuilder out = new StringBuilder("{\"startupMillis\": ").append(startupMillis)
+                .append(", \"durationMicros\": ").append(micros(System.nanoTime()))
+                .append(", \"counters\": ");
+        appendCounters(out, getCounters());
+        out.append(", \"spans\": [");
+        appendSpans(out, roots, "\n  ");
+        return out.append("]}\n").toString();
+    }
+
+    private void appendSpans(StringBuilder out, List<Span> spans, String indent) {
+        synchronized (spans) {
+            for (int i = 0; i < spans.size(); i++) {
+                Span span = spans.get(i);
+                out.append(i == 0 ? "" : ",").append(indent).append("{\"name\": ");
+                appendString(out, span.name);
+                out.append(", \"thread\": ").append(span.threadId)
+                        .append(", \"startMicros\": ").append(micros(span.startNanos))
+                        .append(", \"durationMicros\": ").append(span.durationMicros())
+                        .append(", \"counters\": ");
+                appendCounters(out, span.counterDeltas());
+                out.append(", \"children\": [");
+                appendSpans(out, span.children, indent + "  ");
+                out.append("]}");
+            }
+        }
+    }
+
+    /**
+     * Returns the spans as complete ("X") events and the final counters as
+     * one counter ("C") event, in Chrome's trace event format.
+     */
+    String toChromeTrace() {
+        StringBuilder out = new StringBuilder("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+        List<Span> all = new ArrayList<>();
+        collect(roots, all);
+        for (Span span : all) {
+            out.append("\n  {\"name\": ");
+            appendString(out, span.name);
+            out.append(", \"ph\": \"X\", \"pid\": 1, \"tid\": ").append(span.threadId)
+                    .append(", \"ts\": ").append(micros(span.startNanos))
+                    .append(", \"dur\": ").append(span.durationMicros())
+                    .append(", \"args\": ");
+            appendCounters(out, span.counterDeltas());
+            out.append("},");
+        }
+        out.append("\n  {\"name\": \"io\", \"ph\": \"C\", \"pid\": 1, \"ts\": ")
+                .append(micros(System.nanoTime())).append(", \"args\": ");
+        appendCounters(out, getCounters());
+        return out.append("}\n]}\n").toString();
+    }
+
+    private static void collect(List<Span> spans, List<Span> into) {
+        synchronized (spans) {
+            for (Span span : spans) {
+                into.add(span);
+                collect(span.children, into);
+            }
+        }
+    }
+
+    private static void appendCounters(StringBuilder out, Map<String, Long> values) {
+        out.append('{');
+        String sep = "";
+        for (Map.Entry<String, Long> value : values.entrySet()) {
+            out.append(sep).append('"').append(value.getKey()).append("\": ").append(value.getValue());
+            sep = ", ";
+        }
+        out.append('}');
+    }
+
+    private static void appendString(StringBuilder out, String s) {
+        out.append('"');
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private long micros(long nanos) {
+        return (nanos - originNanos) / 1000;
+    }
+
+    // ==================== Span: ====================
+
+    /**
+     * One timed phase. Closing it makes its parent the thread's current span
+     * again; closing the no-op span of a disabled tracer does nothing.
+     */
+    class Span implements AutoCloseable {
+        private final String name;
+        private final Span parent;
+        private final long threadId;
+        private final long startNanos;
+        private final List<Span> children = new ArrayList<>();
+        private final TreeMap<String, Long> countersAtStart;
+        private TreeMap<String, Long> countersAtEnd;
+        private long endNanos = -1;
+
+        private Span(String name, Span parent) {
+            this.name = name;
+            this.parent = parent;
+            this.threadId = Thread.currentThread().getId();
+            this.startNanos = System.nanoTime();
+            this.countersAtStart = name == null ? null : getCounters();
+        }
+
+        @Override
+        public void close() {
+            if (name == null) {
+                return;
+            }
+            endNanos = System.nanoTime();
+            countersAtEnd = getCounters();
+            current.set(parent);
+        }
+
+        private long durationMicros() {
+            return ((endNanos < 0 ? System.nanoTime() : endNanos) - startNanos) / 1000;
+        }
+
+        /**
+         * Returns how much each counter grew while this span was open (so
+         * far, if it still is).
+         */
+        private TreeMap<String, Long> counterDeltas() {
+            TreeMap<String, Long> deltas = new TreeMap<>();
+            Map<String, Long> end = countersAtEnd != null ? countersAtEnd : getCounters();
+            for (Map.Entry<String, Long> counter : end.entrySet()) {
+                long delta = counter.getValue() - countersAtStart.getOrDefault(counter.getKey(), 0L);
+                if (delta != 0) {
+                    deltas.put(counter.getKey(), delta);
+                }
+            }
+            return deltas;
+        }
+    }
+
+}
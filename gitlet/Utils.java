@@ -9,8 +9,12 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -153,6 +157,56 @@ class Utils {
         }
     }
 
+    /**
+     * Write the result of concatenating the bytes in CONTENTS to FILE by way
+     * of a temporary file in the same directory that is then renamed over
+     * FILE, so that readers and crashes see either the old or the new
+     * contents, never a mix. If SYNC, the new contents are forced to disk
+     * before the rename. Throws IllegalArgumentException in case of problems.
+     */
+    static void writeContentsAtomically(File file, boolean sync,
+                                        Object... contents) {
+        Path tmp = null;
+        try {
+            if (file.isDirectory()) {
+                throw
+                        new IllegalArgumentException("cannot overwrite directory");
+            }
+            tmp = Files.createTempFile(file.getParentFile().toPath(),
+                    "." + file.getName(), ".tmp");
+            writeContents(tmp.toFile(), contents);
+            if (sync) {
+                sync(tmp.toFile());
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException excp) {
+            throw new IllegalArgumentException(excp);
+        } finally {
+            if (tmp != null) {
+                tmp.toFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Force any buffered contents of FILE, which may be a plain file or a
+     * directory, to the storage device. Directories are synced on a best
+     * effort basis, since not every platform allows it. Throws
+     * IllegalArgumentException if a plain file cannot be synced.
+     */
+    static void sync(File file) {
+        boolean isDir = file.isDirectory();
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                isDir ? StandardOpenOption.READ : StandardOpenOption.WRITE)) {
+            channel.force(true);
+        } catch (IOException excp) {
+            if (!isDir) {
+                throw new IllegalArgumentException(excp);
+            }
+        }
+    }
+
     /**
      * Return an object of type T read from FILE, casting it to EXPECTEDCLASS.
      * Throws IllegalArgumentException in case of problems.
@@ -178,6 +232,14 @@ class Utils {
         writeContents(file, serialize(obj));
     }
 
+    /**
+     * Write OBJ to FILE atomically, as for writeContentsAtomically.
+     */
+    static void writeObjectAtomically(File file, Serializable obj,
+                                      boolean sync) {
+        writeContentsAtomically(file, sync, serialize(obj));
+    }
+
     /* DIRECTORIES */
 
     /**